@@ -0,0 +1,406 @@
+import java.awt.Point;
+import java.awt.geom.Path2D;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// 光栅化与填充算法的基准测试
+// 编译: javac -encoding UTF-8 -d bin src/*.java bench/*.java
+// 运行: java -cp bin RenderBenchmark [名称过滤] [quick]
+public class RenderBenchmark {
+    private static final int[] PRIMITIVE_SIZES = {16, 256, 4096};
+    private static final int[] VERTEX_COUNTS = {8, 128, 2048};
+    private static final int[] CANVAS_SIZES = {512, 4096};
+    private static final String[] POLYGON_SHAPES = {"convex", "concave", "star", "self-intersecting"};
+
+    private static long warmupNanos = 300_000_000L;
+    private static long measureNanos = 1_000_000_000L;
+    private static String filter = "";
+
+    interface Op {
+        void run();
+    }
+
+    // 只统计落在画布内的输出像素数，用于换算 pixels/sec
+    static class CountingSink implements PixelSink {
+        private final int width, height;
+        long pixels;
+
+        CountingSink(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public void plot(int x, int y) {
+            if (x >= 0 && x < width && y >= 0 && y < height) pixels++;
+        }
+
+        @Override
+        public void span(int x0, int x1, int y) {
+            if (y < 0 || y >= height) return;
+            int lo = Math.max(0, Math.min(x0, x1));
+            int hi = Math.min(width - 1, Math.max(x0, x1));
+            if (lo <= hi) pixels += hi - lo + 1;
+        }
+    }
+
+    public static void main(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("quick")) {
+                warmupNanos = 50_000_000L;
+                measureNanos = 200_000_000L;
+            } else {
+                filter = arg;
+            }
+        }
+        System.out.printf("%-20s %-42s %14s %18s %12s%n", "benchmark", "params", "ops/s", "throughput", "B/op");
+
+        for (int canvas : CANVAS_SIZES) {
+            RasterPixelSink raster = new RasterPixelSink(canvas, canvas);
+            int c = canvas / 2;
+            for (int size : PRIMITIVE_SIZES) {
+                String params = "size=" + size + " canvas=" + canvas;
+                bench("drawLine", params,
+                        sink -> eightLines(c, size, (x0, y0, x1, y1) -> BresenhamLine.drawLine(sink, x0, y0, x1, y1)), raster);
+                bench("drawLineRuns", params,
+                        sink -> eightLines(c, size, (x0, y0, x1, y1) -> BresenhamLine.drawLineRuns(sink, x0, y0, x1, y1)), raster);
+                // 接近水平/竖直的长线：每段很长，分段画线的优势最明显
+                bench("drawLine-shallow", params, sink -> shallowLines(sink, c, size, false), raster);
+                bench("drawLineRuns-shallow", params, sink -> shallowLines(sink, c, size, true), raster);
+                // 反走样直线：吞吐量按同样八条线的Bresenham像素数换算，与drawLine直接可比
+                // 在不透明的白底上混合，与窗口中的实际情况一致
+                raster.setColor(0xFFFFFFFF);
+                for (int y = 0; y < canvas; y++) {
+                    raster.span(0, canvas - 1, y);
+                }
+                raster.setColor(0xFF000000);
+                CountingSink lineCounter = new CountingSink(canvas, canvas);
+                eightLines(c, size, (x0, y0, x1, y1) -> BresenhamLine.drawLine(lineCounter, x0, y0, x1, y1));
+                measure("drawAntialiasedLine", params,
+                        () -> eightLines(c, size, (x0, y0, x1, y1) -> BresenhamLine.drawAntialiasedLine(raster, x0, y0, x1, y1)),
+                        lineCounter.pixels, "Mpix/s");
+                java.awt.Graphics2D g2d = raster.getImage().createGraphics();
+                g2d.setRenderingHint(java.awt.RenderingHints.KEY_ANTIALIASING, java.awt.RenderingHints.VALUE_ANTIALIAS_ON);
+                measure("java2dAntialiasedLine", params,
+                        () -> eightLines(c, size, g2d::drawLine), lineCounter.pixels, "Mpix/s");
+                g2d.dispose();
+                bench("drawCircle", params, sink -> BresenhamCircle.drawCircle(sink, c, c, size), raster);
+                bench("fillCircle", params, sink -> BresenhamCircle.fillCircle(sink, c, c, size), raster);
+                bench("drawEllipse", params,
+                        sink -> BresenhamEllipse.drawBresenhamEllipse(sink, c, c, size, Math.max(1, size / 2)), raster);
+            }
+
+            // 放大后的超大椭圆：圆心在画布之外，只有一小段弧可见
+            int huge = 20_000;
+            bench("clippedEllipse", "a=b=" + huge + " canvas=" + canvas,
+                    sink -> BresenhamEllipse.drawClippedEllipse(sink, c, canvas + huge - canvas / 4, huge, huge,
+                            0, 0, canvas - 1, canvas - 1), raster);
+
+            // 线框：十万条随机线段，大部分全部或部分落在画布之外
+            int[] segments = wireframe(100_000, canvas, new Random(42));
+            bench("drawLines", "segments=100000 canvas=" + canvas, sink -> {
+                for (int p = 0; p < segments.length; p += 4) {
+                    BresenhamLine.drawClippedLine(sink, segments[p], segments[p + 1], segments[p + 2], segments[p + 3],
+                            0, 0, canvas - 1, canvas - 1);
+                }
+            }, () -> BresenhamLine.drawLines(raster, segments, 0, segments.length / 4), raster);
+
+            // 端点接近int范围两端、穿过画布的长线：裁剪时的中间乘积超过long范围
+            // 每条线关于画布内一点对称，Bresenham必然画出该点，计时前逐条确认至少输出了一个像素
+            int[] extreme = extremeLines(10_000, canvas, new Random(8));
+            CountingSink extremeCounter = new CountingSink(canvas, canvas);
+            for (int p = 0; p < extreme.length; p += 4) {
+                long before = extremeCounter.pixels;
+                BresenhamLine.drawClippedLine(extremeCounter, extreme[p], extreme[p + 1], extreme[p + 2], extreme[p + 3],
+                        0, 0, canvas - 1, canvas - 1);
+                if (extremeCounter.pixels == before) {
+                    throw new IllegalStateException("裁剪后丢失了整条线段: " + extreme[p] + " " + extreme[p + 1]
+                            + " " + extreme[p + 2] + " " + extreme[p + 3]);
+                }
+            }
+            bench("drawLines-extreme", "segments=10000 canvas=" + canvas, sink -> {
+                for (int p = 0; p < extreme.length; p += 4) {
+                    BresenhamLine.drawClippedLine(sink, extreme[p], extreme[p + 1], extreme[p + 2], extreme[p + 3],
+                            0, 0, canvas - 1, canvas - 1);
+                }
+            }, () -> BresenhamLine.drawLines(raster, extreme, 0, extreme.length / 4), raster);
+
+            // 散点图：十万个半径3~8的圆点，约一半落在画布之外
+            Random random = new Random(7);
+            int markers = 100_000;
+            int[] mx = new int[markers], my = new int[markers], mr = new int[markers];
+            for (int i = 0; i < markers; i++) {
+                mx[i] = random.nextInt(2 * canvas) - canvas / 2;
+                my[i] = random.nextInt(2 * canvas) - canvas / 2;
+                mr[i] = 3 + random.nextInt(6);
+            }
+            bench("fillCircles", "markers=100000 canvas=" + canvas, sink -> {
+                for (int i = 0; i < markers; i++) {
+                    BresenhamCircle.fillCircle(sink, mx[i], my[i], mr[i]);
+                }
+            }, () -> BresenhamCircle.fillCircles(raster, mx, my, mr, markers), raster);
+
+            for (String shape : POLYGON_SHAPES) {
+                for (int n : VERTEX_COUNTS) {
+                    List<Point> points = polygon(shape, n, c, c, canvas * 0.45);
+                    String params = "shape=" + shape + " vertices=" + n + " canvas=" + canvas;
+                    PolygonFill.ScanLineFiller filler = new PolygonFill.ScanLineFiller().setPolygon(points);
+                    bench("scanLineFill", params, filler::fill, raster);
+                    bench("edgeFill", params, sink -> EdgeFill.edgeFill(points, sink), raster);
+                    bench("edgeFillNonZero", params,
+                            sink -> EdgeFill.edgeFill(points, sink, Path2D.WIND_NON_ZERO), raster);
+                    // 反走样填充：吞吐量按同一多边形的非反走样像素数换算，对比Java2D的反走样填充
+                    CountingSink fillCounter = new CountingSink(canvas, canvas);
+                    EdgeFill.edgeFill(points, fillCounter);
+                    CoverageFill coverageFill = new CoverageFill();
+                    measure("coverageFill", params, () -> coverageFill.fill(points, raster, Path2D.WIND_EVEN_ODD),
+                            fillCounter.pixels, "Mpix/s");
+                    Path2D fillPath = toPath(points);
+                    fillPath.setWindingRule(Path2D.WIND_EVEN_ODD);
+                    java.awt.Graphics2D aa = raster.getImage().createGraphics();
+                    aa.setRenderingHint(java.awt.RenderingHints.KEY_ANTIALIASING, java.awt.RenderingHints.VALUE_ANTIALIAS_ON);
+                    measure("java2dAntialiasedFill", params, () -> aa.fill(fillPath), fillCounter.pixels, "Mpix/s");
+                    aa.dispose();
+                    bench("parallelScanLineFill", params, filler::fill,
+                            () -> filler.fillParallel(raster, ForkJoinPool.commonPool()), raster);
+                    // 8像素宽的轮廓：凸块逐行输出跨度，对比Java2D描边器（不反走样），吞吐量按同样的像素数换算
+                    StrokeRasterizer stroker = new StrokeRasterizer(8, StrokeRasterizer.JOIN_MITER).clipRows(0, canvas - 1);
+                    bench("strokePolyline", params, sink -> stroker.strokePolyline(points, sink), raster);
+                    CountingSink strokeCounter = new CountingSink(canvas, canvas);
+                    stroker.strokePolyline(points, strokeCounter);
+                    Path2D path = toPath(points);
+                    java.awt.Graphics2D g2d = raster.getImage().createGraphics();
+                    g2d.setStroke(new java.awt.BasicStroke(8));
+                    measure("java2dStroke", params, () -> g2d.draw(path), strokeCounter.pixels, "Mpix/s");
+                    g2d.dispose();
+                }
+            }
+
+            // 分块渲染：混合场景按图块分给各线程，对比单线程池
+            TileRenderer tiles = mixedScene(canvas, new Random(11));
+            String sceneParams = "primitives=" + tiles.size() + " canvas=" + canvas;
+            ForkJoinPool single = new ForkJoinPool(1);
+            measure("tileRender-1thread", sceneParams, () -> tiles.render(raster, single), tiles.size(), "Mprim/s");
+            measure("tileRender", sceneParams + " threads=" + ForkJoinPool.commonPool().getParallelism(),
+                    () -> tiles.render(raster, ForkJoinPool.commonPool()), tiles.size(), "Mprim/s");
+            // 跨越大量图块的大图元：单线程分块渲染对比直接在整幅光栅上绘制
+            List<Point> star = polygon("star", 2048, canvas / 2, canvas / 2, canvas * 0.45);
+            TileRenderer large = new TileRenderer(canvas, canvas);
+            large.polygon(star);
+            large.circle(c, c, canvas * 2 / 5);
+            large.fillCircle(c, c, canvas * 3 / 10);
+            String largeParams = "vertices=2048 circles=2 canvas=" + canvas;
+            measure("tileRenderLarge-1thread", largeParams, () -> large.render(raster, single), 3, "Mprim/s");
+            measure("directLarge", largeParams, () -> {
+                EdgeFill.edgeFill(star, raster, Path2D.WIND_EVEN_ODD);
+                BresenhamCircle.drawCircle(raster, c, c, canvas * 2 / 5);
+                BresenhamCircle.fillCircle(raster, c, c, canvas * 3 / 10);
+            }, 3, "Mprim/s");
+            single.shutdown();
+        }
+
+        double[][] rotation = {
+            {Math.cos(0.01), -Math.sin(0.01), 0},
+            {Math.sin(0.01), Math.cos(0.01), 0},
+            {0, 0, 1}
+        };
+        for (int n : VERTEX_COUNTS) {
+            Path2D path = toPath(polygon("star", n, 400, 300, 200));
+            measure("transform", "vertices=" + n, () -> ShapeDrawer.transformShape(path, rotation), n, "Mvert/s");
+            // 拖动事件只合成矩阵，路径留到绘制时生成
+            ShapeStore store = new ShapeStore();
+            int id = store.add(path);
+            measure("deferredTransform", "vertices=" + n, () -> store.apply(id, rotation), n, "Mvert/s");
+            double[] outX = new double[store.vertexCount()], outY = new double[store.vertexCount()];
+            measure("batchTransform", "vertices=" + n, () -> store.transformAll(outX, outY), n, "Mvert/s");
+        }
+
+        // 整个场景：一千个图形、约一百万个顶点一次性变换
+        ShapeStore scene = new ShapeStore();
+        Random random = new Random(3);
+        for (int i = 0; i < 1000; i++) {
+            int id = scene.add(toPath(polygon("star", 1024, random.nextInt(800), random.nextInt(600), 50)));
+            scene.apply(id, rotation);
+        }
+        double[] sceneX = new double[scene.vertexCount()], sceneY = new double[scene.vertexCount()];
+        measure("batchTransform", "shapes=1000 vertices=" + scene.vertexCount(),
+                () -> scene.transformAll(sceneX, sceneY), scene.vertexCount(), "Mvert/s");
+    }
+
+    interface LineOp {
+        void draw(int x0, int y0, int x1, int y1);
+    }
+
+    // 从(c, c)出发向八个方向各画一条长为size的线，覆盖所有八分区
+    private static void eightLines(int c, int size, LineOp op) {
+        for (int i = 0; i < 8; i++) {
+            double angle = i * Math.PI / 4 + 0.3;
+            op.draw(c, c, c + (int) (size * Math.cos(angle)), c + (int) (size * Math.sin(angle)));
+        }
+    }
+
+    // 斜率为±1/16的四条水平方向和四条竖直方向的线
+    private static void shallowLines(PixelSink sink, int c, int size, boolean runs) {
+        for (int i = 0; i < 8; i++) {
+            int major = (i & 1) == 0 ? size : -size;
+            int minor = (i & 2) == 0 ? size / 16 : -size / 16;
+            int x1 = c + (i < 4 ? major : minor), y1 = c + (i < 4 ? minor : major);
+            if (runs) {
+                BresenhamLine.drawLineRuns(sink, c, c, x1, y1);
+            } else {
+                BresenhamLine.drawLine(sink, c, c, x1, y1);
+            }
+        }
+    }
+
+    interface RasterOp {
+        void run(PixelSink sink);
+    }
+
+    private static void bench(String name, String params, RasterOp op, RasterPixelSink raster) {
+        bench(name, params, op, () -> op.run(raster), raster);
+    }
+
+    // countOp以计数输出统计像素数，op为实际计时的操作（用于只能写入光栅的并行版本）
+    private static void bench(String name, String params, RasterOp countOp, Op op, RasterPixelSink raster) {
+        if (!name.contains(filter)) return;
+        CountingSink counter = new CountingSink(raster.getWidth(), raster.getHeight());
+        countOp.run(counter);
+        measure(name, params, op, counter.pixels, "Mpix/s");
+    }
+
+    // unitsPerOp为每次操作处理的像素数或顶点数，用于换算吞吐量
+    private static void measure(String name, String params, Op op, long unitsPerOp, String unit) {
+        if (!name.contains(filter)) return;
+        runFor(op, warmupNanos);
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long ops = runFor(op, measureNanos);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocBefore;
+
+        double opsPerSec = ops * 1e9 / elapsed;
+        System.out.printf(Locale.ROOT, "%-20s %-42s %14.1f %10.2f %-7s %12.1f%n",
+                name, params, opsPerSec, opsPerSec * unitsPerOp / 1e6, unit, (double) allocated / ops);
+    }
+
+    private static long runFor(Op op, long nanos) {
+        long ops = 0;
+        long deadline = System.nanoTime() + nanos;
+        do {
+            op.run();
+            ops++;
+        } while (System.nanoTime() < deadline);
+        return ops;
+    }
+
+    // 生成闭合多边形（末尾重复起点，与面板中右键闭合的约定一致）
+    static List<Point> polygon(String shape, int n, int cx, int cy, double radius) {
+        List<Point> points = new ArrayList<>();
+        int step = 1;
+        if (shape.equals("self-intersecting")) {
+            // 星形多边形{n/k}：每次跳过约半圈，边彼此相交
+            step = Math.max(1, n / 2 - 1);
+            while (gcd(n, step) != 1) step--;
+        }
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * ((long) i * step % n) / n;
+            double r = radius;
+            if (shape.equals("concave") && i % 2 == 1) {
+                r = radius * 0.75;
+            } else if (shape.equals("star") && i % 2 == 1) {
+                r = radius * 0.2;
+            }
+            points.add(new Point(cx + (int) Math.round(r * Math.cos(angle)),
+                                 cy + (int) Math.round(r * Math.sin(angle))));
+        }
+        points.add(points.get(0));
+        return points;
+    }
+
+    // 随机的直线、圆、实心圆、椭圆和多边形混合场景
+    static TileRenderer mixedScene(int canvas, Random random) {
+        TileRenderer tiles = new TileRenderer(canvas, canvas);
+        for (int i = 0; i < 20_000; i++) {
+            tiles.setColor(new java.awt.Color(random.nextInt(0xFFFFFF)));
+            int x = random.nextInt(canvas), y = random.nextInt(canvas);
+            int size = 4 + random.nextInt(canvas / 16);
+            switch (i % 5) {
+                case 0:
+                    tiles.line(x, y, x + random.nextInt(2 * size) - size, y + random.nextInt(2 * size) - size);
+                    break;
+                case 1:
+                    tiles.circle(x, y, size);
+                    break;
+                case 2:
+                    tiles.fillCircle(x, y, size / 2);
+                    break;
+                case 3:
+                    tiles.ellipse(x, y, size, Math.max(1, size / 3));
+                    break;
+                case 4:
+                    tiles.polygon(polygon("concave", 12, x, y, size));
+                    break;
+            }
+        }
+        return tiles;
+    }
+
+    // 端点分布在画布三倍范围内的随机短线段
+    static int[] wireframe(int count, int canvas, Random random) {
+        int[] coords = new int[count * 4];
+        for (int i = 0; i < coords.length; i += 4) {
+            int x = random.nextInt(3 * canvas) - canvas;
+            int y = random.nextInt(3 * canvas) - canvas;
+            coords[i] = x;
+            coords[i + 1] = y;
+            coords[i + 2] = x + random.nextInt(canvas / 4) - canvas / 8;
+            coords[i + 3] = y + random.nextInt(canvas / 4) - canvas / 8;
+        }
+        return coords;
+    }
+
+    // 以画布内的点为中点、两端接近int范围边界的线段
+    static int[] extremeLines(int count, int canvas, Random random) {
+        int[] coords = new int[count * 4];
+        int reach = Integer.MAX_VALUE - canvas;
+        for (int i = 0; i < coords.length; i += 4) {
+            int cx = random.nextInt(canvas), cy = random.nextInt(canvas);
+            int dx = reach - random.nextInt(1000), dy = random.nextInt(reach);
+            if (random.nextBoolean()) {
+                int t = dx;
+                dx = dy;
+                dy = t;
+            }
+            if (random.nextBoolean()) dx = -dx;
+            if (random.nextBoolean()) dy = -dy;
+            coords[i] = cx - dx;
+            coords[i + 1] = cy - dy;
+            coords[i + 2] = cx + dx;
+            coords[i + 3] = cy + dy;
+        }
+        return coords;
+    }
+
+    private static Path2D toPath(List<Point> points) {
+        Path2D path = new Path2D.Double();
+        path.moveTo(points.get(0).x, points.get(0).y);
+        for (int i = 1; i < points.size() - 1; i++) {
+            path.lineTo(points.get(i).x, points.get(i).y);
+        }
+        path.closePath();
+        return path;
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}
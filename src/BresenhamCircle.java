@@ -6,6 +6,8 @@ import javax.swing.*;
 public class BresenhamCircle extends JPanel {
     private int radius = 0; // 圆的半径
     private int centerX, centerY; // 圆心坐标
+    private RasterPixelSink raster; // 离屏像素缓冲，每帧整体贴图一次
+    private boolean filled = false; // 右键切换实心圆/空心圆
 
     public BresenhamCircle() {
         setPreferredSize(new Dimension(400, 400));
@@ -15,6 +17,9 @@ public class BresenhamCircle extends JPanel {
                 if (SwingUtilities.isLeftMouseButton(e)) {
                     radius = Math.max(Math.abs(e.getX() - centerX), Math.abs(e.getY() - centerY));
                     repaint();
+                } else if (SwingUtilities.isRightMouseButton(e)) {
+                    filled = !filled;
+                    repaint();
                 }
             }
         };
@@ -27,26 +32,34 @@ public class BresenhamCircle extends JPanel {
         centerX = getWidth() / 2;
         centerY = getHeight() / 2;
 
+        raster = RasterPixelSink.resize(raster, getWidth(), getHeight());
+        raster.clear();
         if (radius > 0) {
-            drawCircle(g, centerX, centerY, radius);
+            raster.setColor(getForeground());
+            if (filled) {
+                fillCircle(raster, centerX, centerY, radius);
+            } else {
+                drawCircle(raster, centerX, centerY, radius);
+            }
         }
+        g.drawImage(raster.getImage(), 0, 0, null);
     }
 
-    private void drawCircle(Graphics g, int x0, int y0, int r) {
+    static void drawCircle(PixelSink sink, int x0, int y0, int r) {
         int x = 0;
         int y = r;
         int d = 3 - 2 * r;
 
         while (y >= x) {
             // 8个对称点
-            g.drawLine(x0 + x, y0 + y, x0 + x, y0 + y);
-            g.drawLine(x0 - x, y0 + y, x0 - x, y0 + y);
-            g.drawLine(x0 + x, y0 - y, x0 + x, y0 - y);
-            g.drawLine(x0 - x, y0 - y, x0 - x, y0 - y);
-            g.drawLine(x0 + y, y0 + x, x0 + y, y0 + x);
-            g.drawLine(x0 - y, y0 + x, x0 - y, y0 + x);
-            g.drawLine(x0 + y, y0 - x, x0 + y, y0 - x);
-            g.drawLine(x0 - y, y0 - x, x0 - y, y0 - x);
+            sink.plot(x0 + x, y0 + y);
+            sink.plot(x0 - x, y0 + y);
+            sink.plot(x0 + x, y0 - y);
+            sink.plot(x0 - x, y0 - y);
+            sink.plot(x0 + y, y0 + x);
+            sink.plot(x0 - y, y0 + x);
+            sink.plot(x0 + y, y0 - x);
+            sink.plot(x0 - y, y0 - x);
 
             if (d < 0) {
                 d += 4 * x + 6;
@@ -58,6 +71,150 @@ public class BresenhamCircle extends JPanel {
         }
     }
 
+    // 实心圆：与drawCircle相同的决策变量，每步按八分圆对输出水平线段
+    static void fillCircle(PixelSink sink, int x0, int y0, int r) {
+        int x = 0;
+        int y = r;
+        int d = 3 - 2 * r;
+
+        while (y >= x) {
+            // 行y0±x，每个x只出现一次
+            sink.span(x0 - y, x0 + y, y0 + x);
+            if (x != 0) {
+                sink.span(x0 - y, x0 + y, y0 - x);
+            }
+
+            if (d < 0) {
+                d += 4 * x + 6;
+            } else {
+                // y即将减小，此时的x是行y0±y上最宽的位置，只在这时输出一次
+                if (y != x) {
+                    sink.span(x0 - x, x0 + x, y0 + y);
+                    sink.span(x0 - x, x0 + x, y0 - y);
+                }
+                d += 4 * (x - y) + 10;
+                y--;
+            }
+            x++;
+        }
+    }
+
+    // 只光栅化落在视口[vx0, vx1]×[vy0, vy1]内的部分，结果与drawCircle相同，耗时与可见像素数成正比
+    // drawCircle的决策变量d = 2(x+1)² + y² + (y-1)² - 2r²，由此第一个八分圆(x <= y)中第x列的y有闭式circleY，
+    // 每个对称的八分圆的可见列范围也由闭式求出，只从可见段的起点开始递推
+    static void drawClippedCircle(PixelSink sink, int x0, int y0, int r, int vx0, int vy0, int vx1, int vy1) {
+        if (r < 0 || outside(x0, y0, r, vx0, vy0, vx1, vy1)) return;
+        if (r == 0) {
+            sink.plot(x0, y0);
+            return;
+        }
+        long xEnd = octantEnd(r);
+        for (int sx = -1; sx <= 1; sx += 2) {
+            for (int sy = -1; sy <= 1; sy += 2) {
+                // 视口换算到本象限的局部坐标：列偏移u = sx·(X - x0)，行偏移v = sy·(Y - y0)
+                long ulo = Math.max(0, sx > 0 ? (long) vx0 - x0 : (long) x0 - vx1);
+                long uhi = sx > 0 ? (long) vx1 - x0 : (long) x0 - vx0;
+                long vlo = Math.max(0, sy > 0 ? (long) vy0 - y0 : (long) y0 - vy1);
+                long vhi = sy > 0 ? (long) vy1 - y0 : (long) y0 - vy0;
+                // 八分圆上的点(x, y)画在(u, v) = (x, y)，以及对角线另一侧的(u, v) = (y, x)
+                octantArc(sink, x0, y0, r, xEnd, sx, sy, false, ulo, uhi, vlo, vhi);
+                octantArc(sink, x0, y0, r, xEnd, sx, sy, true, vlo, vhi, ulo, uhi);
+            }
+        }
+    }
+
+    // 第一个八分圆上x在[xlo, xhi]、y在[ylo, yhi]内的点；y随x单调不增，满足条件的x是一个区间
+    private static void octantArc(PixelSink sink, int x0, int y0, long r, long xEnd, int sx, int sy, boolean swap,
+                                  long xlo, long xhi, long ylo, long yhi) {
+        if (xlo > xhi || ylo > yhi) return;
+        // 八分圆上y >= 1，y <= r
+        long from = Math.max(xlo, yhi >= r ? 0 : lastColumn(r, yhi + 1) + 1);
+        long to = Math.min(Math.min(xhi, xEnd), ylo <= 1 ? xEnd : lastColumn(r, ylo));
+        if (from > to) return;
+        long x = from, y = circleY(r, x);
+        long d = 2 * ((x + 1) * (x + 1) - (r - y) * (r + y) - y) + 1;
+        for (; x <= to; x++) {
+            if (swap) {
+                sink.plot((int) (x0 + sx * y), (int) (y0 + sy * x));
+            } else {
+                sink.plot((int) (x0 + sx * x), (int) (y0 + sy * y));
+            }
+            if (d < 0) {
+                d += 4 * x + 6;
+            } else {
+                d += 4 * (x - y) + 10;
+                y--;
+            }
+        }
+    }
+
+    // 只输出视口内的行，结果与fillCircle相同。fillCircle在第y0±k行输出的最宽跨度的半宽：
+    // k在第一个八分圆的列范围内时为circleY(k)，否则为y仍不小于k的最后一列lastColumn(k)
+    // 每行直接由闭式求出，耗时与可见行数成正比，与半径无关
+    static void fillClippedCircle(PixelSink sink, int x0, int y0, int r, int vx0, int vy0, int vx1, int vy1) {
+        if (r < 0 || outside(x0, y0, r, vx0, vy0, vx1, vy1)) return;
+        if (r == 0) {
+            sink.span(x0, x0, y0);
+            return;
+        }
+        long xEnd = octantEnd(r);
+        long top = Math.max(vy0, (long) y0 - r), bottom = Math.min(vy1, (long) y0 + r);
+        for (long y = top; y <= bottom; y++) {
+            long k = Math.abs(y - y0);
+            long w = k <= xEnd ? circleY(r, k) : lastColumn(r, k);
+            long left = Math.max(vx0, x0 - w), right = Math.min(vx1, x0 + w);
+            if (left <= right) {
+                sink.span((int) left, (int) right, (int) y);
+            }
+        }
+    }
+
+    // 外接矩形与视口不相交
+    private static boolean outside(int x0, int y0, int r, int vx0, int vy0, int vx1, int vy1) {
+        return (long) x0 + r < vx0 || (long) x0 - r > vx1 || (long) y0 + r < vy0 || (long) y0 - r > vy1;
+    }
+
+    // 第一个八分圆中第x列的y：d在x-1列上小于0时y不变，即满足 y(y-1) < r² - x² 的最大y
+    private static long circleY(long r, long x) {
+        long v = (r - x) * (r + x);
+        long y = (long) ((1 + Math.sqrt(4.0 * v + 1)) / 2);
+        while (y > 0 && y * (y - 1) >= v) y--;
+        while ((y + 1) * y < v) y++;
+        return y;
+    }
+
+    // y仍不小于k的最后一列：满足 x² < r² - k(k-1) 的最大x，没有时为-1
+    private static long lastColumn(long r, long k) {
+        long v = (r - k) * (r + k) + k;
+        if (v <= 0) return -1;
+        long x = (long) Math.sqrt((double) v);
+        while (x > 0 && x * x >= v) x--;
+        while ((x + 1) * (x + 1) < v) x++;
+        return x;
+    }
+
+    // 第一个八分圆的最后一列：y(x) >= x，即 x(2x-1) < r² 的最大x
+    private static long octantEnd(long r) {
+        long v = r * r;
+        long x = (long) (r / Math.sqrt(2));
+        while (x > 0 && x * (2 * x - 1) >= v) x--;
+        while ((x + 1) * (2 * x + 1) < v) x++;
+        return x;
+    }
+
+    // 批量绘制实心圆，外接矩形与光栅不相交的圆直接跳过
+    static void fillCircles(RasterPixelSink raster, int[] cx, int[] cy, int[] r, int count) {
+        int w = raster.getWidth(), h = raster.getHeight();
+        for (int i = 0; i < count; i++) {
+            int x = cx[i], y = cy[i], radius = r[i];
+            if (radius < 0 || (long) x + radius < 0 || (long) x - radius >= w
+                    || (long) y + radius < 0 || (long) y - radius >= h) {
+                continue;
+            }
+            fillCircle(raster, x, y, radius);
+        }
+    }
+
     public static void main(String[] args) {
         JFrame frame = new JFrame("Bresenham Circle Drawing");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -24,6 +24,10 @@ public class BresenhamEllipse extends JFrame {
             try {
                 int a = Integer.parseInt(aField.getText());
                 int b = Integer.parseInt(bField.getText());
+                if (a <= 0 || b <= 0 || (long) a * b > MAX_AXIS_PRODUCT) {
+                    JOptionPane.showMessageDialog(this, "轴长须为正数，且a*b不超过" + MAX_AXIS_PRODUCT);
+                    return;
+                }
                 drawPanel.setParameters(a, b);
                 drawPanel.repaint();
             } catch (NumberFormatException ex) {
@@ -46,77 +50,310 @@ public class BresenhamEllipse extends JFrame {
             new BresenhamEllipse().setVisible(true);
         });
     }
-}
 
-class DrawPanel extends JPanel {
-    private int a = 0, b = 0;
-    
-    public void setParameters(int a, int b) {
-        this.a = a;
-        this.b = b;
-    }
-    
-    @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        if (a <= 0 || b <= 0) return;
-        
-        // 获取面板中心点
-        int centerX = getWidth() / 2;
-        int centerY = getHeight() / 2;
-        
-        // 使用Bresenham算法绘制椭圆
-        drawBresenhamEllipse(g, centerX, centerY, a, b);
-    }
-    
-    private void drawBresenhamEllipse(Graphics g, int centerX, int centerY, int a, int b) {
+    // 决策变量全部使用long并放大4倍以消去1/2、1/4，a*b不超过MAX_AXIS_PRODUCT时不会溢出
+    static final long MAX_AXIS_PRODUCT = 1L << 29;
+
+    static void drawBresenhamEllipse(PixelSink sink, int centerX, int centerY, int a, int b) {
+        checkAxes(a, b);
+        long aa = (long) a * a, bb = (long) b * b;
         int x = 0;
         int y = b;
         
-        // 区域1的初始决策参数
-        long d1 = b * b - a * a * b + a * a / 4;
-        int dx = 2 * b * b * x;
-        int dy = 2 * a * a * y;
+        // 区域1的初始决策参数：4·f(x+1, y-1/2)
+        long d1 = region1Decision(aa, bb, x, y);
+        long dx = 2 * bb * x;
+        long dy = 2 * aa * y;
         
         // 绘制区域1的点
         while (dx < dy) {
-            plotEllipsePoints(g, centerX, centerY, x, y);
+            plotEllipsePoints(sink, centerX, centerY, x, y);
             
             x++;
-            dx += 2 * b * b;
+            dx += 2 * bb;
             if (d1 < 0) {
-                d1 += dx + b * b;
+                d1 += 4 * (dx + bb);
             } else {
                 y--;
-                dy -= 2 * a * a;
-                d1 += dx - dy + b * b;
+                dy -= 2 * aa;
+                d1 += 4 * (dx - dy + bb);
             }
         }
         
-        // 区域2的初始决策参数
-        long d2 = b * b * (x + 1) * (x + 1) + a * a * (y - 1) * (y - 1) - a * a * b * b;
+        // 区域2的初始决策参数：4·f(x+1/2, y-1)
+        long d2 = region2Decision(aa, bb, x, y);
         
         // 绘制区域2的点
         while (y >= 0) {
-            plotEllipsePoints(g, centerX, centerY, x, y);
+            plotEllipsePoints(sink, centerX, centerY, x, y);
             
             y--;
-            dy -= 2 * a * a;
+            dy -= 2 * aa;
             if (d2 > 0) {
-                d2 += a * a - dy;
+                d2 += 4 * (aa - dy);
             } else {
                 x++;
-                dx += 2 * b * b;
-                d2 += dx - dy + a * a;
+                dx += 2 * bb;
+                d2 += 4 * (dx - dy + aa);
+            }
+        }
+    }
+
+    // 只光栅化椭圆落在视口[vx0, vx1]×[vy0, vy1]内的弧段，耗时与可见像素数成正比
+    // 在切线斜率为-1的点之前，区域1第x列的y可由闭式region1Y直接求出；在它之后，区域2第y行的x
+    // 可由region2X求出。只有两区域交界附近的少数几步需要实际递推，其余可见段都从端点处直接开始
+    static void drawClippedEllipse(PixelSink sink, int centerX, int centerY, int a, int b,
+                                   int vx0, int vy0, int vx1, int vy1) {
+        checkAxes(a, b);
+        // 外接矩形与视口不相交
+        if ((long) centerX + a < vx0 || (long) centerX - a > vx1
+                || (long) centerY + b < vy0 || (long) centerY - b > vy1) {
+            return;
+        }
+        long aa = (long) a * a, bb = (long) b * b;
+        double norm = Math.sqrt((double) aa + bb);
+
+        // 区域1：[0, x1]内y = region1Y(x)；第一个满足 b²x >= a²y 的点(xs, ys)是区域2的起点
+        int x1 = (int) Math.max(0, Math.floor(aa / norm) - 2);
+        int xs, ys;
+        if (bb * x1 >= aa * region1Y(aa, bb, x1)) {
+            int lo = 0, hi = x1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (bb * mid >= aa * region1Y(aa, bb, mid)) hi = mid; else lo = mid + 1;
+            }
+            xs = lo;
+            ys = region1Y(aa, bb, xs);
+            x1 = xs - 1;
+        } else {
+            // 从x1开始递推到区域1结束
+            long x = x1, y = region1Y(aa, bb, x1);
+            long d1 = region1Decision(aa, bb, x, y);
+            while (bb * x < aa * y) {
+                x++;
+                if (d1 < 0) {
+                    d1 += 4 * (2 * bb * x + bb);
+                } else {
+                    y--;
+                    d1 += 4 * (2 * bb * x - 2 * aa * y + bb);
+                }
+            }
+            xs = (int) x;
+            ys = (int) y;
+        }
+
+        // 区域2：从(xs, ys)递推到斜率足够陡、且递推结果追上region2X的行(x2, y2)，此后 x = max(x2, region2X(y))
+        long yStar = (long) Math.floor(bb / norm);
+        long x = xs, y = ys;
+        long d2 = region2Decision(aa, bb, x, y);
+        while (y >= 0 && (y > yStar - 2 || x < region2X(aa, bb, y))) {
+            y--;
+            if (d2 > 0) {
+                d2 += 4 * (aa - 2 * aa * y);
+            } else {
+                x++;
+                d2 += 4 * (2 * bb * x - 2 * aa * y + aa);
+            }
+        }
+        int x2 = (int) x, y2 = (int) y;
+
+        for (int sx = -1; sx <= 1; sx += 2) {
+            for (int sy = -1; sy <= 1; sy += 2) {
+                // 视口换算到本象限的局部坐标 (x, y >= 0)
+                long xlo = Math.max(0, sx > 0 ? (long) vx0 - centerX : (long) centerX - vx1);
+                long xhi = Math.min(a, sx > 0 ? (long) vx1 - centerX : (long) centerX - vx0);
+                long ylo = Math.max(0, sy > 0 ? (long) vy0 - centerY : (long) centerY - vy1);
+                long yhi = Math.min(b, sy > 0 ? (long) vy1 - centerY : (long) centerY - vy0);
+                if (xlo > xhi || ylo > yhi) continue;
+                Quadrant q = new Quadrant(sink, centerX, centerY, sx, sy, aa, bb,
+                                          (int) xlo, (int) xhi, (int) ylo, (int) yhi);
+
+                // 区域1可由闭式求出的部分：y随x单调不增，二分求出可见的x范围
+                if (x1 >= 0) {
+                    int lo = 0, hi = x1 + 1;
+                    while (lo < hi) {
+                        int mid = (lo + hi) >>> 1;
+                        if (region1Y(aa, bb, mid) <= q.yhi) hi = mid; else lo = mid + 1;
+                    }
+                    int start = Math.max(q.xlo, lo);
+                    lo = -1;
+                    hi = x1;
+                    while (lo < hi) {
+                        int mid = (lo + hi + 1) >> 1;
+                        if (region1Y(aa, bb, mid) >= q.ylo) lo = mid; else hi = mid - 1;
+                    }
+                    int end = Math.min(q.xhi, lo);
+                    if (start <= end) {
+                        q.region1(start, region1Y(aa, bb, start), end);
+                    }
+                }
+                // 两区域交界附近需要递推的部分
+                if (xs - 1 > x1 && q.xhi > x1) {
+                    int from = Math.max(x1, 0);
+                    q.region1(from, region1Y(aa, bb, from), xs - 1);
+                }
+                if (ys > y2 && q.yhi > y2) {
+                    q.region2(xs, ys, y2 + 1);
+                }
+                // 区域2可由闭式求出的部分：x随y减小单调不减
+                if (y2 >= 0) {
+                    int lo = 0, hi = y2 + 1;
+                    while (lo < hi) {
+                        int mid = (lo + hi) >>> 1;
+                        if (Math.max(x2, region2X(aa, bb, mid)) <= q.xhi) hi = mid; else lo = mid + 1;
+                    }
+                    int bottom = Math.max(q.ylo, lo);
+                    lo = -1;
+                    hi = y2;
+                    while (lo < hi) {
+                        int mid = (lo + hi + 1) >> 1;
+                        if (Math.max(x2, region2X(aa, bb, mid)) >= q.xlo) lo = mid; else hi = mid - 1;
+                    }
+                    int top = Math.min(q.yhi, lo);
+                    if (bottom <= top) {
+                        q.region2(Math.max(x2, region2X(aa, bb, top)), top, bottom);
+                    }
+                }
+            }
+        }
+    }
+
+    // 一个象限内的递推，局部坐标(x, y)映射为(cx + sx*x, cy + sy*y)，只输出可见范围内的点
+    private static class Quadrant {
+        final PixelSink sink;
+        final int cx, cy, sx, sy;
+        final long aa, bb;
+        final int xlo, xhi, ylo, yhi;
+
+        Quadrant(PixelSink sink, int cx, int cy, int sx, int sy, long aa, long bb,
+                 int xlo, int xhi, int ylo, int yhi) {
+            this.sink = sink;
+            this.cx = cx;
+            this.cy = cy;
+            this.sx = sx;
+            this.sy = sy;
+            this.aa = aa;
+            this.bb = bb;
+            this.xlo = xlo;
+            this.xhi = xhi;
+            this.ylo = ylo;
+            this.yhi = yhi;
+        }
+
+        void plot(int x, int y) {
+            if (x >= xlo && x <= xhi && y >= ylo && y <= yhi) {
+                sink.plot(cx + sx * x, cy + sy * y);
+            }
+        }
+
+        // 区域1：从(x, y)开始递推到xEnd（含）
+        void region1(int x, int y, int xEnd) {
+            long d1 = region1Decision(aa, bb, x, y);
+            long dx = 2 * bb * x;
+            long dy = 2 * aa * y;
+            while (x <= xEnd) {
+                plot(x, y);
+                x++;
+                dx += 2 * bb;
+                if (d1 < 0) {
+                    d1 += 4 * (dx + bb);
+                } else {
+                    y--;
+                    dy -= 2 * aa;
+                    d1 += 4 * (dx - dy + bb);
+                }
+            }
+        }
+
+        // 区域2：从(x, y)开始向下递推到yEnd（含）
+        void region2(int x, int y, int yEnd) {
+            long d2 = region2Decision(aa, bb, x, y);
+            long dx = 2 * bb * x;
+            long dy = 2 * aa * y;
+            while (y >= yEnd) {
+                plot(x, y);
+                y--;
+                dy -= 2 * aa;
+                if (d2 > 0) {
+                    d2 += 4 * (aa - dy);
+                } else {
+                    x++;
+                    dx += 2 * bb;
+                    d2 += 4 * (dx - dy + aa);
+                }
             }
         }
     }
+
+    // 4·f(x+1, y-1/2)，f(x, y) = b²x² + a²y² - a²b²
+    private static long region1Decision(long aa, long bb, long x, long y) {
+        return 4 * bb * (x + 1) * (x + 1) - 4 * aa * bb + aa * (2 * y - 1) * (2 * y - 1);
+    }
+
+    // 4·f(x+1/2, y-1)
+    private static long region2Decision(long aa, long bb, long x, long y) {
+        return bb * (2 * x + 1) * (2 * x + 1) - 4 * aa * bb + 4 * aa * (y - 1) * (y - 1);
+    }
+
+    // 区域1中第x列的y：满足 f(x, y-1/2) < 0 的最大y
+    private static int region1Y(long aa, long bb, long x) {
+        long r = 4 * bb * (aa - x * x); // 要求 a²(2y-1)² < r
+        if (r <= aa) return 0;
+        long y = (long) ((Math.sqrt((double) r / aa) + 1) / 2);
+        while (y > 0 && aa * (2 * y - 1) * (2 * y - 1) >= r) y--;
+        while (aa * (2 * y + 1) * (2 * y + 1) < r) y++;
+        return (int) y;
+    }
+
+    // 区域2中第y行的x（不考虑区域1的终点）：满足 f(x+1/2, y) > 0 的最小x
+    private static int region2X(long aa, long bb, long y) {
+        long r = 4 * aa * (bb - y * y); // 要求 b²(2x+1)² > r
+        if (r < bb) return 0;
+        long x = (long) ((Math.sqrt((double) r / bb) - 1) / 2);
+        while (x > 0 && bb * (2 * x - 1) * (2 * x - 1) > r) x--;
+        while (bb * (2 * x + 1) * (2 * x + 1) <= r) x++;
+        return (int) x;
+    }
+
+    static void checkAxes(int a, int b) {
+        if (a <= 0 || b <= 0 || (long) a * b > MAX_AXIS_PRODUCT) {
+            throw new IllegalArgumentException("椭圆轴长超出范围: a=" + a + ", b=" + b);
+        }
+    }
     
-    private void plotEllipsePoints(Graphics g, int centerX, int centerY, int x, int y) {
+    private static void plotEllipsePoints(PixelSink sink, int centerX, int centerY, int x, int y) {
         // 由于椭圆的对称性，一次画出八个点
-        g.drawLine(centerX + x, centerY + y, centerX + x, centerY + y);
-        g.drawLine(centerX - x, centerY + y, centerX - x, centerY + y);
-        g.drawLine(centerX + x, centerY - y, centerX + x, centerY - y);
-        g.drawLine(centerX - x, centerY - y, centerX - x, centerY - y);
+        sink.plot(centerX + x, centerY + y);
+        sink.plot(centerX - x, centerY + y);
+        sink.plot(centerX + x, centerY - y);
+        sink.plot(centerX - x, centerY - y);
+    }
+}
+
+class DrawPanel extends JPanel {
+    private int a = 0, b = 0;
+    private RasterPixelSink raster; // 离屏像素缓冲，每帧整体贴图一次
+    
+    public void setParameters(int a, int b) {
+        this.a = a;
+        this.b = b;
+    }
+    
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (a <= 0 || b <= 0) return;
+        
+        // 获取面板中心点
+        int centerX = getWidth() / 2;
+        int centerY = getHeight() / 2;
+        
+        // 使用Bresenham算法绘制椭圆
+        raster = RasterPixelSink.resize(raster, getWidth(), getHeight());
+        raster.clear();
+        raster.setColor(getForeground());
+        BresenhamEllipse.drawClippedEllipse(raster, centerX, centerY, a, b,
+                0, 0, raster.getWidth() - 1, raster.getHeight() - 1);
+        g.drawImage(raster.getImage(), 0, 0, null);
     }
 } 
\ No newline at end of file
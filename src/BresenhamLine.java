@@ -1,11 +1,15 @@
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.geom.PathIterator;
+import java.nio.IntBuffer;
 import javax.swing.*;
 
 public class BresenhamLine extends JPanel {
     private Point p1 = null; 
     private Point p2 = null; 
+    private RasterPixelSink raster; // 离屏像素缓冲，每帧整体贴图一次
+    private boolean antialiased = false; // 右键切换反走样直线
 
     public BresenhamLine() {
         setPreferredSize(new Dimension(400, 400));
@@ -15,6 +19,9 @@ public class BresenhamLine extends JPanel {
                 if (SwingUtilities.isLeftMouseButton(e)) {
                     p2 = e.getPoint();
                     repaint();
+                } else if (SwingUtilities.isRightMouseButton(e)) {
+                    antialiased = !antialiased;
+                    repaint();
                 }
             }
         };
@@ -27,18 +34,26 @@ public class BresenhamLine extends JPanel {
         if (p1 == null) {
             p1 = new Point(getWidth() / 2, getHeight() / 2);
         }
+        raster = RasterPixelSink.resize(raster, getWidth(), getHeight());
+        raster.clear();
         if (p2 != null) {
-            drawLine(g, p1.x, p1.y, p2.x, p2.y);
+            raster.setColor(getForeground());
+            if (antialiased) {
+                drawAntialiasedLine(raster, p1.x, p1.y, p2.x, p2.y);
+            } else {
+                drawLine(raster, p1.x, p1.y, p2.x, p2.y);
+            }
         }
+        g.drawImage(raster.getImage(), 0, 0, null);
     }
 
-    private void drawLine(Graphics g, int x0, int y0, int x1, int y1) {
+    static void drawLine(PixelSink sink, int x0, int y0, int x1, int y1) {
         int dx = Math.abs(x1 - x0), sx = x0 < x1 ? 1 : -1;
         int dy = -Math.abs(y1 - y0), sy = y0 < y1 ? 1 : -1;
         int err = dx + dy, e2;
 
         while (true) {
-            g.drawLine(x0, y0, x0, y0);
+            sink.plot(x0, y0);
             if (x0 == x1 && y0 == y1) break;
             e2 = 2 * err;
             if (e2 >= dy) {
@@ -52,6 +67,306 @@ public class BresenhamLine extends JPanel {
         }
     }
 
+    // 吴小林反走样直线：沿主方向每走一步，按直线到上下两个像素中心的距离分配覆盖率，混合到光栅中
+    // 次方向坐标用16.16定点数递推，增量的余数单独累计，全程只用整数运算，长线段也没有累积误差
+    static void drawAntialiasedLine(RasterPixelSink raster, int x0, int y0, int x1, int y1) {
+        drawClippedAntialiasedLine(raster, x0, y0, x1, y1, 0, 0, raster.getWidth() - 1, raster.getHeight() - 1);
+    }
+
+    // 只递推线段落在视口[vx0, vx1]×[vy0, vy1]附近的部分，视口内的像素与drawAntialiasedLine完全一致；
+    // 视口外的像素由raster裁剪
+    static void drawClippedAntialiasedLine(RasterPixelSink raster, int x0, int y0, int x1, int y1,
+                                           int vx0, int vy0, int vx1, int vy1) {
+        // 统一成沿x方向从左到右递推，陡峭的直线交换x、y，绘制时再换回来
+        boolean steep = Math.abs((long) y1 - y0) > Math.abs((long) x1 - x0);
+        if (steep) {
+            int t = x0; x0 = y0; y0 = t;
+            t = x1; x1 = y1; y1 = t;
+        }
+        if (x0 > x1) {
+            int t = x0; x0 = x1; x1 = t;
+            t = y0; y0 = y1; y1 = t;
+        }
+        long dx = (long) x1 - x0, dy = (long) y1 - y0;
+
+        // 主方向只遍历视口范围内的列，起点处的定点坐标和余数直接算出
+        long first = Math.max(x0, steep ? vy0 : vx0);
+        long last = Math.min(x1, steep ? vy1 : vx1);
+        // 次方向上每列写入y和y + 1两个像素，再按斜率反推出y落在[lo - 1, hi]内的列；
+        // 用浮点数估计后各放宽2列，多出的列由raster裁剪，不影响结果
+        long lo = steep ? vx0 : vy0, hi = steep ? vx1 : vy1;
+        if (dy != 0) {
+            double a = x0 + (double) (lo - 1 - y0) * dx / dy, b = x0 + (double) (hi + 1 - y0) * dx / dy;
+            first = Math.max(first, (long) Math.floor(Math.min(a, b)) - 2);
+            last = Math.min(last, (long) Math.ceil(Math.max(a, b)) + 2);
+        } else if (y0 < lo - 1 || y0 > hi) {
+            return;
+        }
+        if (first > last) return;
+        long q = 0, r = 0, intery = (long) y0 << 16, err = 0;
+        if (dx > 0) {
+            q = Math.floorDiv(dy << 16, dx); // 每步增量 = q + r/dx
+            r = Math.floorMod(dy << 16, dx);
+            long i = first - x0;
+            intery += q * i + r * i / dx;
+            err = r * i % dx;
+        }
+
+        for (int x = (int) first, end = (int) last; x <= end; x++) {
+            int y = (int) (intery >> 16);
+            int frac = (int) (intery >> 8) & 0xFF; // 小数部分的高8位，即下方像素的覆盖率
+            if (steep) {
+                raster.blend(y, x, 255 - frac);
+                raster.blend(y + 1, x, frac);
+            } else {
+                raster.blend(x, y, 255 - frac);
+                raster.blend(x, y + 1, frac);
+            }
+            intery += q;
+            err += r;
+            if (err >= dx) {
+                err -= dx;
+                intery++;
+            }
+        }
+    }
+
+    // 用反走样直线描出路径轮廓，顶点坐标四舍五入到整数像素
+    static void drawAntialiasedPath(RasterPixelSink raster, Shape shape) {
+        double[] coords = new double[6];
+        int startX = 0, startY = 0, lastX = 0, lastY = 0;
+        for (PathIterator it = shape.getPathIterator(null); !it.isDone(); it.next()) {
+            int type = it.currentSegment(coords);
+            int x = (int) Math.round(coords[0]), y = (int) Math.round(coords[1]);
+            switch (type) {
+                case PathIterator.SEG_MOVETO:
+                    startX = lastX = x;
+                    startY = lastY = y;
+                    break;
+                case PathIterator.SEG_LINETO:
+                    drawAntialiasedLine(raster, lastX, lastY, x, y);
+                    lastX = x;
+                    lastY = y;
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    drawAntialiasedLine(raster, lastX, lastY, startX, startY);
+                    lastX = startX;
+                    lastY = startY;
+                    break;
+            }
+        }
+    }
+
+    private static final int MIN_RUN_LENGTH = 4; // 平均段长低于该值时不分段
+
+    // 分段(run-slice)画线：沿主方向连续的、次方向坐标相同的像素构成一段，每段整体输出一次
+    // 第k步的次方向偏移为 floor((2k*minor + major) / (2*major))，偏移为j的段从
+    // ceil(major*(2j-1) / (2*minor)) 步开始；段起点的商和余数逐段递推，不做除法
+    // 输出的像素与drawLine完全相同；平均段长较短时逐段输出反而更慢，直接交给drawLine
+    static void drawLineRuns(PixelSink sink, int x0, int y0, int x1, int y1) {
+        long dx = Math.abs((long) x1 - x0), sx = x0 < x1 ? 1 : -1;
+        long dy = Math.abs((long) y1 - y0), sy = y0 < y1 ? 1 : -1;
+        boolean xMajor = dx >= dy;
+        long major = xMajor ? dx : dy;
+        long minor = xMajor ? dy : dx;
+        if (major < MIN_RUN_LENGTH * minor) {
+            drawLine(sink, x0, y0, x1, y1);
+            return;
+        }
+        if (minor == 0) {
+            if (xMajor) {
+                sink.span(x0, x1, y0);
+            } else {
+                sink.vspan(x0, y0, y1);
+            }
+            return;
+        }
+
+        long den = 2 * minor;
+        long qStep = 2 * major / den, rStep = 2 * major % den;
+        long q = major / den, r = major % den; // 下一段起点 = ceil(major*(2j+1) / den) = q + (r > 0)
+        long start = 0;
+        for (long j = 0; start <= major; j++) {
+            long next = r == 0 ? q : q + 1;
+            long end = Math.min(next - 1, major);
+            if (xMajor) {
+                sink.span((int) (x0 + sx * start), (int) (x0 + sx * end), (int) (y0 + sy * j));
+            } else {
+                sink.vspan((int) (x0 + sx * j), (int) (y0 + sy * start), (int) (y0 + sy * end));
+            }
+            start = next;
+            q += qStep;
+            r += rStep;
+            if (r >= den) {
+                r -= den;
+                q++;
+            }
+        }
+    }
+
+    // 批量绘制线段，coords中每4个int为一条线段(x0, y0, x1, y1)，先裁剪到光栅范围再绘制
+    static void drawLines(RasterPixelSink raster, int[] coords, int offset, int segments) {
+        int vx1 = raster.getWidth() - 1, vy1 = raster.getHeight() - 1;
+        for (int i = 0, p = offset; i < segments; i++, p += 4) {
+            drawClippedLine(raster, coords[p], coords[p + 1], coords[p + 2], coords[p + 3], 0, 0, vx1, vy1);
+        }
+    }
+
+    // 从缓冲区当前位置读取到limit为止的所有线段
+    static void drawLines(RasterPixelSink raster, IntBuffer coords) {
+        int vx1 = raster.getWidth() - 1, vy1 = raster.getHeight() - 1;
+        for (int p = coords.position(); p + 3 < coords.limit(); p += 4) {
+            drawClippedLine(raster, coords.get(p), coords.get(p + 1), coords.get(p + 2), coords.get(p + 3), 0, 0, vx1, vy1);
+        }
+    }
+
+    // 只绘制线段落在视口[vx0, vx1]×[vy0, vy1]内的部分，输出与drawLine在视口内的像素完全一致
+    static void drawClippedLine(PixelSink sink, int x0, int y0, int x1, int y1,
+                                int vx0, int vy0, int vx1, int vy1) {
+        // Cohen–Sutherland区域码：两端点在视口同一侧外时直接舍弃
+        if ((outCode(x0, y0, vx0, vy0, vx1, vy1) & outCode(x1, y1, vx0, vy0, vx1, vy1)) != 0) return;
+
+        long dx = Math.abs((long) x1 - x0), sx = x0 < x1 ? 1 : -1;
+        long dy = Math.abs((long) y1 - y0), sy = y0 < y1 ? 1 : -1;
+        boolean xMajor = dx >= dy;
+        long major = xMajor ? dx : dy;   // 主方向上的步数
+        long minor = xMajor ? dy : dx;
+
+        // 主方向坐标在视口内的步数范围
+        long lo = 0, hi = major;
+        if (xMajor) {
+            lo = Math.max(lo, stepsToReach(x0, sx, vx0, vx1, true));
+            hi = Math.min(hi, stepsToReach(x0, sx, vx0, vx1, false));
+        } else {
+            lo = Math.max(lo, stepsToReach(y0, sy, vy0, vy1, true));
+            hi = Math.min(hi, stepsToReach(y0, sy, vy0, vy1, false));
+        }
+
+        // 第k步时次方向偏移为 floor((2k*minor + major) / (2*major))，反解出次方向坐标在视口内的步数范围
+        long m0 = xMajor ? y0 : x0;
+        long ms = xMajor ? sy : sx;
+        long mLo, mHi; // 次方向偏移量允许的范围
+        if (xMajor) {
+            mLo = ms > 0 ? vy0 - m0 : m0 - vy1;
+            mHi = ms > 0 ? vy1 - m0 : m0 - vy0;
+        } else {
+            mLo = ms > 0 ? vx0 - m0 : m0 - vx1;
+            mHi = ms > 0 ? vx1 - m0 : m0 - vx0;
+        }
+        if (minor == 0) {
+            if (mLo > 0 || mHi < 0) return;
+        } else {
+            // 次方向偏移只在[0, minor]内取值，超出该范围的约束不起作用，也不必计算
+            if (mLo > minor || mHi < 0) return;
+            if (mLo > 0) lo = Math.max(lo, mulDiv(major, 2 * mLo - 1, 2 * minor - 1, 2 * minor));
+            if (mHi < minor) hi = Math.min(hi, mulDiv(major, 2 * mHi + 1, 2 * minor - 1, 2 * minor) - 1);
+        }
+        if (lo > hi) return;
+
+        // 直接跳到第lo步，误差项取未裁剪时走到该步的值
+        // 误差项的真实值不超过2*major，中间乘积溢出后按补码回绕，结果仍然准确
+        long offset = minor == 0 ? 0 : mulDiv(2 * lo, minor, major, 2 * major);
+        long stepsX = xMajor ? lo : offset;
+        long stepsY = xMajor ? offset : lo;
+        int x = (int) (x0 + sx * stepsX);
+        int y = (int) (y0 + sy * stepsY);
+        if (major >= MIN_RUN_LENGTH * minor) {
+            clippedRuns(sink, x, y, sx, sy, xMajor, lo, hi, offset, major, minor);
+            return;
+        }
+        long err = dx - dy - stepsX * dy + stepsY * dx, e2;
+
+        for (long k = lo; k <= hi; k++) {
+            sink.plot(x, y);
+            e2 = 2 * err;
+            if (e2 >= -dy) {
+                err -= dy;
+                x += sx;
+            }
+            if (e2 <= dx) {
+                err += dx;
+                y += sy;
+            }
+        }
+    }
+
+    // drawClippedLine的分段输出：从第lo步(次方向偏移为j，坐标(x, y))起按drawLineRuns的分段逐段输出到第hi步
+    // 偏移为j的段在 ceil(major*(2j+1) / (2*minor)) 步结束，首段的商和余数直接算出，之后逐段递推
+    private static void clippedRuns(PixelSink sink, int x, int y, long sx, long sy, boolean xMajor,
+                                    long lo, long hi, long j, long major, long minor) {
+        long s = xMajor ? sx : sy;
+        int a = xMajor ? x : y;   // 当前段起点的主方向坐标
+        int m = xMajor ? y : x;   // 当前段的次方向坐标
+        if (minor == 0) {
+            if (xMajor) {
+                sink.span(a, (int) (a + s * (hi - lo)), m);
+            } else {
+                sink.vspan(m, a, (int) (a + s * (hi - lo)));
+            }
+            return;
+        }
+        int ms = (int) (xMajor ? sy : sx);
+        long den = 2 * minor;
+        long qStep = 2 * major / den, rStep = 2 * major % den;
+        long q = mulDiv(major, 2 * j + 1, 0, den);
+        long r = major * (2 * j + 1) - q * den; // 真实值小于den，乘积溢出后按补码回绕仍然准确
+        for (long start = lo; start <= hi; m += ms) {
+            long next = r == 0 ? q : q + 1;
+            long end = Math.min(next - 1, hi);
+            int b = (int) (a + s * (end - start));
+            if (xMajor) {
+                sink.span(a, b, m);
+            } else {
+                sink.vspan(m, a, b);
+            }
+            a = (int) (b + s);
+            start = next;
+            q += qStep;
+            r += rStep;
+            if (r >= den) {
+                r -= den;
+                q++;
+            }
+        }
+    }
+
+    private static int outCode(int x, int y, int vx0, int vy0, int vx1, int vy1) {
+        int code = 0;
+        if (x < vx0) code |= 1;
+        else if (x > vx1) code |= 2;
+        if (y < vy0) code |= 4;
+        else if (y > vy1) code |= 8;
+        return code;
+    }
+
+    // 从start出发每步移动s，first为true时返回首次进入[min, max]的步数，否则返回最后一次在其中的步数
+    private static long stepsToReach(long start, long s, long min, long max, boolean first) {
+        if (s > 0) {
+            return first ? min - start : max - start;
+        }
+        return first ? start - max : start - min;
+    }
+
+    // floor((a*b + c) / d)，d > 0；两端点接近int范围两端时a*b可达2^65，超出long范围
+    // 此时先用double估计商，再按补码回绕算出余数修正：调用处的商不超过2^34，估计值只差几个单位，
+    // 余数的真实值远小于2^63，回绕后的结果仍然准确
+    private static long mulDiv(long a, long b, long c, long d) {
+        if (Long.numberOfLeadingZeros(Math.abs(a)) + Long.numberOfLeadingZeros(Math.abs(b)) > 66) {
+            return Math.floorDiv(a * b + c, d);
+        }
+        long q = (long) Math.floor(((double) a * b + c) / d);
+        long r = a * b + c - q * d;
+        while (r < 0) {
+            q--;
+            r += d;
+        }
+        while (r >= d) {
+            q++;
+            r -= d;
+        }
+        return q;
+    }
+
     public static void main(String[] args) {
         JFrame frame = new JFrame("Bresenham Line Drawing");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -0,0 +1,233 @@
+import java.awt.Point;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+import java.util.List;
+
+// 解析覆盖率的反走样多边形填充（字体光栅化器的做法）：
+// 每条边按扫描行、像素列切成小段，每段在它经过的格子x和右邻格子x+1上记下带符号的覆盖量增量，
+// 两者之和等于这一段的高度；格子只在边经过的位置产生，稀疏地存放，数量与边长成正比。
+// 同一行的格子按x排序后从左往右求前缀和，和的绝对值就是像素的覆盖率（面积占比）；
+// 两个格子之间的像素覆盖率相同，整段以同一透明度混合。总代价与边长加输出的跨度数成正比，与外接矩形面积无关
+// 用法与ScanLineFiller相同，缓冲区重复使用，预热后反复填充不再分配内存
+class CoverageFill {
+    // 覆盖量增量用定点数表示，ONE表示覆盖一整个像素
+    private static final int FRACTION_BITS = 24;
+    private static final long ONE = 1L << FRACTION_BITS;
+
+    // 格子：所在的行，以及打包在一起的列和增量(x << 32 | 增量的低32位)，列已限制在[0, width)之内
+    // 增量随列一起排序和移动，扫描时顺序读取，不必再按下标回查
+    private int[] cellY = new int[256];
+    private long[] cellKey = new long[256];
+    private int cellCount;
+    // 按行分桶：rowStart[r]为第r行的格子在sorted中的起点
+    private int[] rowStart = new int[0];
+    private long[] sorted = new long[256];
+    // 格子密集的行改为按列累加到这里再顺序扫描，扫描后清零；下标为x
+    private long[] rowSum = new long[0];
+    private int width, height;
+
+    // points为闭合多边形（末尾重复起点）。与扫描线填充一致，整数顶点落在像素中心，
+    // 即像素(x, y)覆盖[x - 0.5, x + 0.5)×[y - 0.5, y + 0.5)
+    void fill(List<Point> points, RasterPixelSink raster, int windingRule) {
+        begin(raster);
+        for (int i = 0; i + 1 < points.size(); i++) {
+            Point p1 = points.get(i), p2 = points.get(i + 1);
+            addEdge(p1.x + 0.5, p1.y + 0.5, p2.x + 0.5, p2.y + 0.5);
+        }
+        render(raster, windingRule);
+    }
+
+    private void begin(RasterPixelSink raster) {
+        width = raster.getWidth();
+        height = raster.getHeight();
+        cellCount = 0;
+    }
+
+    // 把一条边拆到它经过的各行；从下往上的边覆盖量为负，先统一成从上往下再记符号
+    private void addEdge(double x0, double y0, double x1, double y1) {
+        if (y0 == y1) return; // 水平边不改变任何行的覆盖量
+        double sign = 1;
+        if (y0 > y1) {
+            double t = x0;
+            x0 = x1;
+            x1 = t;
+            t = y0;
+            y0 = y1;
+            y1 = t;
+            sign = -1;
+        }
+        if (y1 <= 0 || y0 >= height) return;
+        double dxdy = (x1 - x0) / (y1 - y0);
+        int rowFrom = (int) Math.max(0, Math.floor(y0));
+        int rowTo = (int) Math.min(height - 1, Math.ceil(y1) - 1);
+        for (int row = rowFrom; row <= rowTo; row++) {
+            double ya = Math.max(y0, row), yb = Math.min(y1, row + 1);
+            double xa = x0 + (ya - y0) * dxdy, xb = x0 + (yb - y0) * dxdy;
+            addRowSegment(row, Math.min(xa, xb), Math.max(xa, xb), sign * (yb - ya));
+        }
+    }
+
+    // 行内从xl到xr、高度为dy的一段：按像素列切开，每一小段的高度按它的水平长度分配。
+    // 小段在列c内的中点为m（相对列左边界），它使像素c覆盖 dy·(1 - m)，c右侧的像素整个覆盖dy，
+    // 所以在格子c上加 dy·(1 - m)，在格子c+1上加 dy·m
+    private void addRowSegment(int row, double xl, double xr, double dy) {
+        if (xl >= width) return; // 只影响画布右侧
+        int c = (int) Math.floor(xl);
+        if (xr <= 0 || c == (int) Math.floor(xr) || xr == c + 1) {
+            // 整段落在一列之内（或全在画布左侧，这时所有增量都归到第0列）
+            double m = (xl + xr) / 2 - c;
+            addCell(c, row, dy * (1 - m));
+            addCell(c + 1, row, dy * m);
+            return;
+        }
+        double perX = dy / (xr - xl);
+        if (xl < 0) {
+            // 画布左侧的部分对第0列及其右侧的贡献只是它的总高度
+            addCell(0, row, -xl * perX);
+            xl = 0;
+            c = 0;
+        }
+        for (double x = xl; x < xr && c < width; c++) {
+            double next = Math.min(xr, c + 1);
+            double h = (next - x) * perX;
+            double m = (x + next) / 2 - c;
+            addCell(c, row, h * (1 - m));
+            addCell(c + 1, row, h * m);
+            x = next;
+        }
+    }
+
+    // 列小于0的增量与加在第0列上效果相同；列不小于width的增量只影响画布外，直接丢弃
+    private void addCell(int x, int y, double delta) {
+        if (x >= width) return;
+        if (x < 0) x = 0;
+        if (cellCount == cellY.length) {
+            cellY = Arrays.copyOf(cellY, cellCount * 2);
+            cellKey = Arrays.copyOf(cellKey, cellCount * 2);
+        }
+        cellY[cellCount] = y;
+        cellKey[cellCount] = (long) x << 32 | Math.round(delta * ONE) & 0xFFFFFFFFL;
+        cellCount++;
+    }
+
+    // 格子按行计数排序，行内按x排序，再逐行求前缀和输出透明度跨度
+    private void render(RasterPixelSink raster, int windingRule) {
+        if (windingRule != Path2D.WIND_EVEN_ODD && windingRule != Path2D.WIND_NON_ZERO) {
+            throw new IllegalArgumentException("未知的填充规则: " + windingRule);
+        }
+        if (rowStart.length < height + 1) {
+            rowStart = new int[height + 1];
+        } else {
+            Arrays.fill(rowStart, 0, height + 1, 0);
+        }
+        if (sorted.length < cellCount) {
+            sorted = new long[cellKey.length];
+        }
+        if (rowSum.length < width) {
+            rowSum = new long[width];
+        }
+        for (int i = 0; i < cellCount; i++) {
+            rowStart[cellY[i] + 1]++;
+        }
+        for (int r = 0; r < height; r++) {
+            rowStart[r + 1] += rowStart[r];
+        }
+        // 放置时借用rowStart[r]作为第r行的写入位置，放完后它正好等于第r+1行的起点，再整体后移一位
+        for (int i = 0; i < cellCount; i++) {
+            sorted[rowStart[cellY[i]]++] = cellKey[i];
+        }
+        for (int r = height; r > 0; r--) {
+            rowStart[r] = rowStart[r - 1];
+        }
+        rowStart[0] = 0;
+
+        boolean evenOdd = windingRule == Path2D.WIND_EVEN_ODD;
+        for (int y = 0; y < height; y++) {
+            int from = rowStart[y], to = rowStart[y + 1];
+            if (from == to) continue;
+            int minX = Integer.MAX_VALUE, maxX = 0;
+            for (int i = from; i < to; i++) {
+                int cx = (int) (sorted[i] >>> 32);
+                minX = Math.min(minX, cx);
+                maxX = Math.max(maxX, cx);
+            }
+            // 边很多时一行上的格子数可能超过它们跨越的列数，这时按列累加比排序便宜
+            if ((long) (to - from) * 8 > maxX - minX) {
+                sweepDense(raster, y, from, to, minX, maxX, evenOdd);
+            } else {
+                sweepSorted(raster, y, from, to, evenOdd);
+            }
+        }
+    }
+
+    private void sweepSorted(RasterPixelSink raster, int y, int from, int to, boolean evenOdd) {
+        Arrays.sort(sorted, from, to);
+        long sum = 0;
+        int x = 0; // 下一个尚未输出的像素
+        for (int i = from; i < to; ) {
+            int cx = (int) (sorted[i] >>> 32);
+            if (cx > x) {
+                int alpha = alpha(sum, evenOdd);
+                if (alpha > 0) {
+                    raster.blendSpan(x, cx - 1, y, alpha);
+                }
+            }
+            // 同一格子上的增量全部加上后才是该像素的覆盖率
+            for (; i < to && (int) (sorted[i] >>> 32) == cx; i++) {
+                sum += (int) sorted[i];
+            }
+            int alpha = alpha(sum, evenOdd);
+            if (alpha > 0) {
+                raster.blend(cx, y, alpha);
+            }
+            x = cx + 1;
+        }
+        finishRow(raster, y, x, sum, evenOdd);
+    }
+
+    // 逐列求前缀和，透明度相同的相邻像素合并成一段输出
+    private void sweepDense(RasterPixelSink raster, int y, int from, int to, int minX, int maxX, boolean evenOdd) {
+        long[] rowSum = this.rowSum;
+        for (int i = from; i < to; i++) {
+            rowSum[(int) (sorted[i] >>> 32)] += (int) sorted[i];
+        }
+        long sum = 0;
+        int runStart = minX, runAlpha = 0;
+        for (int x = minX; x <= maxX; x++) {
+            sum += rowSum[x];
+            rowSum[x] = 0;
+            int alpha = alpha(sum, evenOdd);
+            if (alpha != runAlpha) {
+                if (runAlpha > 0) {
+                    raster.blendSpan(runStart, x - 1, y, runAlpha);
+                }
+                runStart = x;
+                runAlpha = alpha;
+            }
+        }
+        if (runAlpha > 0) {
+            raster.blendSpan(runStart, maxX, y, runAlpha);
+        }
+        finishRow(raster, y, maxX + 1, sum, evenOdd);
+    }
+
+    // 超出右边界的格子已丢弃，多边形伸出画布右侧时从x开始余下的像素仍被覆盖
+    private void finishRow(RasterPixelSink raster, int y, int x, long sum, boolean evenOdd) {
+        int alpha = alpha(sum, evenOdd);
+        if (alpha > 0 && x < width) {
+            raster.blendSpan(x, width - 1, y, alpha);
+        }
+    }
+
+    // 累积的带符号覆盖量即环绕数的连续推广：非零规则取绝对值并截断到1，奇偶规则按2取模后折回[0, 1]
+    private static int alpha(long sum, boolean evenOdd) {
+        long a = Math.abs(sum);
+        if (evenOdd) {
+            a &= 2 * ONE - 1;
+            if (a > ONE) a = 2 * ONE - a;
+        } else if (a > ONE) {
+            a = ONE;
+        }
+        return (int) ((a * 255 + ONE / 2) >> FRACTION_BITS);
+    }
+}
@@ -1,6 +1,8 @@
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.Path2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import javax.swing.*;
 
@@ -9,17 +11,271 @@ public class EdgeFill extends JPanel {
     private Color fillColor = Color.RED;
     private boolean isDrawing = false;
     private boolean isFilled = false;
+    private int windingRule = Path2D.WIND_EVEN_ODD;
+    private RasterPixelSink raster; // 填充结果写入的离屏像素缓冲
+    private final CoverageFill coverageFill = new CoverageFill();
+    private boolean antialiased = false; // 按覆盖率填充边缘像素
 
-    // 定义边结构
-    private static class Edge {
-        int yMax;      // 边的最大y值
-        float xMin;    // 当前扫描线与边的交点x值
-        float dx;      // 斜率的倒数
-        
-        Edge(int yMax, float xMin, float dx) {
-            this.yMax = yMax;
-            this.xMin = xMin;
-            this.dx = dx;
+    // 边表：按结构数组存储，每条边占各数组的同一下标，避免为每条边创建对象
+    // 交点x用32.32定点数表示，并带有整数误差项做精确的DDA递推：
+    // 交点始终等于floor(x × 2^32)，与直接按公式计算的结果完全相同，任意高的边都不会漂移，
+    // 所以任意一行上的交点也能由闭式直接求出，不必从边的顶端逐行递推
+    // 构建后只读，递推状态放在每次填充自己的工作数组中，同一张边表可以在多个线程中同时填充不同的区域
+    static final class EdgeTable {
+        // dda中每条边占连续的3个long：边高（误差项的分母）、每行交点的增量、每行误差项的增量
+        private static final int HEIGHT = 0, STEP = 1, ERR_STEP = 2, DDA = 3;
+        // 填充时的工作数组中每条边占连续的4个long：误差项、边高、每行交点的增量、每行误差项的增量
+        private static final int W_ERR = 0, W_HEIGHT = 1, W_STEP = 2, W_ERR_STEP = 3, WORK = 4;
+
+        final int count;      // 边数（不含水平边）
+        final int[] yMin;     // 边的最小y值
+        final int[] yMax;     // 边的最大y值
+        final int[] winding;  // 边的方向：从上往下为+1，从下往上为-1
+        final int[] order;    // 按yMin排序后的边下标，yMin相同的边保持原有顺序
+        final int minY, maxY; // 所有边的y范围，没有边时minY > maxY
+        private final long[] top; // 边在yMin行的交点，32.32定点数
+        private final long[] dda; // 递推常量，见上
+
+        EdgeTable(List<Point> points) {
+            int n = Math.max(0, points.size() - 1);
+            yMin = new int[n];
+            yMax = new int[n];
+            winding = new int[n];
+            top = new long[n];
+            dda = new long[n * DDA];
+
+            int count = 0;
+            for (int i = 0; i < points.size() - 1; i++) {
+                Point p1 = points.get(i);
+                Point p2 = points.get(i + 1);
+                
+                // 忽略水平边
+                if (p1.y == p2.y) continue;
+                
+                // 确保p1的y坐标小于p2的y坐标，交换前记下边的方向
+                winding[count] = 1;
+                if (p1.y > p2.y) {
+                    Point temp = p1;
+                    p1 = p2;
+                    p2 = temp;
+                    winding[count] = -1;
+                }
+                
+                // 每行x增加dx / dy，定点数的增量为(dx × 2^32) / dy的商，余数累积在误差项中
+                // dx × 2^32和定位时的k × 增量都要放进long，坐标之差须小于2^31
+                long dx = (long) p2.x - p1.x;
+                long dy = (long) p2.y - p1.y;
+                if (Math.abs(dx) > Integer.MAX_VALUE || dy > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("边的顶点坐标之差须小于2^31: (" + p1.x + ", " + p1.y
+                            + ")-(" + p2.x + ", " + p2.y + ")");
+                }
+                yMin[count] = p1.y;
+                yMax[count] = p2.y;
+                top[count] = (long) p1.x << 32;
+                int d = count * DDA;
+                dda[d + HEIGHT] = dy;
+                dda[d + STEP] = Math.floorDiv(dx << 32, dy);
+                dda[d + ERR_STEP] = Math.floorMod(dx << 32, dy);
+                count++;
+            }
+            this.count = count;
+
+            // 以(yMin - minY, 下标)为键排序，yMin相同的边保持原有顺序
+            int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < count; i++) {
+                minY = Math.min(minY, yMin[i]);
+                maxY = Math.max(maxY, yMax[i]);
+            }
+            this.minY = minY;
+            this.maxY = maxY;
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = ((long) yMin[i] - minY) << 32 | i;
+            }
+            Arrays.sort(keys);
+            order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = (int) keys[i];
+            }
+        }
+
+        // 边e在第y行（yMin <= y <= yMax）的交点：从顶端递推k = y - yMin行，交点共增加k·增量，
+        // 误差项共增加k·误差增量，每满一个边高进一位。误差增量小于边高，两者都小于2^31，乘积不会溢出
+        private long xAt(int e, int y) {
+            int d = e * DDA;
+            long k = (long) y - yMin[e];
+            return top[e] + k * dda[d + STEP] + k * dda[d + ERR_STEP] / dda[d + HEIGHT];
+        }
+
+        // 边e在第y行的交点取整后的像素列
+        int pixelX(int e, int y) {
+            return round(xAt(e, y));
+        }
+
+        // 整个宽度上填充扫描线yFrom到yTo（含）之间的部分
+        void fill(PixelSink sink, int yFrom, int yTo, int windingRule) {
+            fill(sink, Integer.MIN_VALUE, yFrom, Integer.MAX_VALUE, yTo, windingRule, order, null, null, count);
+        }
+
+        // 填充[x0, x1]×[y0, y1]，只考虑edges[0, n)中的边：它们须按yMin排序，并包含与这些行相交的全部边
+        // xLo/xHi不为null时，xLo[i]、xHi[i]为edges[i]在这些行上的像素列范围：整个在矩形左侧的边只把方向
+        // 累加到每行环绕数的初值，整个在右侧的边不影响矩形内的像素，两者都不参与逐行递推。
+        // 矩形外的部分由sink裁剪；xLo为null时按整行填充
+        void fill(PixelSink sink, int x0, int y0, int x1, int y1, int windingRule,
+                  int[] edges, int[] xLo, int[] xHi, int n) {
+            if (windingRule != Path2D.WIND_EVEN_ODD && windingRule != Path2D.WIND_NON_ZERO) {
+                throw new IllegalArgumentException("未知的填充规则: " + windingRule);
+            }
+            int yFrom = Math.max(y0, minY), yTo = Math.min(y1, maxY);
+            if (yFrom > yTo) return;
+            boolean clipped = xLo != null;
+
+            // 挑出需要递推的边；左侧的边按差分记入rowWinding，第y行的初值为rowWinding[yFrom, y]之和
+            int[] ids = new int[n];
+            int[] rowWinding = null;
+            int c = 0;
+            for (int i = 0; i < n; i++) {
+                int e = edges[i];
+                if (yMax[e] <= yFrom || yMin[e] > yTo) continue;
+                if (clipped && xHi[i] < x0) {
+                    if (rowWinding == null) {
+                        rowWinding = new int[yTo - yFrom + 2];
+                    }
+                    rowWinding[Math.max(yMin[e], yFrom) - yFrom] += winding[e];
+                    rowWinding[Math.min(yMax[e], yTo + 1) - yFrom] -= winding[e];
+                } else if (!clipped || xLo[i] <= x1) {
+                    ids[c++] = e;
+                }
+            }
+
+            // 工作数组按ids中的顺序存放，已经开始的边直接定位到第yFrom行
+            int[] ey0 = new int[c], ey1 = new int[c], ew = new int[c];
+            long[] fx = new long[c];
+            long[] work = new long[c * WORK];
+            int[] aet = new int[c];      // 活动边表，存放工作数组下标，始终按x值有序
+            int[] incoming = new int[c]; // 本条扫描线新加入的边
+            int active = 0;
+            for (int j = 0; j < c; j++) {
+                int e = ids[j], d = e * DDA, w = j * WORK;
+                ey0[j] = yMin[e];
+                ey1[j] = yMax[e];
+                ew[j] = winding[e];
+                long k = Math.max(0, (long) yFrom - yMin[e]);
+                long h = dda[d + HEIGHT], err = k * dda[d + ERR_STEP];
+                fx[j] = top[e] + k * dda[d + STEP] + err / h;
+                work[w + W_ERR] = err % h;
+                work[w + W_HEIGHT] = h;
+                work[w + W_STEP] = dda[d + STEP];
+                work[w + W_ERR_STEP] = dda[d + ERR_STEP];
+                if (yMin[e] < yFrom) {
+                    aet[active++] = j;
+                }
+            }
+            int next = active; // 下一条待加入的边，yMin < yFrom的边排在ids的最前面
+            sortByX(aet, active, incoming, fx);
+            int wind0 = 0; // 矩形左侧的边在本行的环绕数之和
+
+            // 扫描线算法
+            for (int y = yFrom; y <= yTo; y++) {
+                if (rowWinding != null) {
+                    wind0 += rowWinding[y - yFrom];
+                } else if (active == 0 && next < c) {
+                    // 活动边表为空时直接跳到下一条边的起点
+                    y = Math.max(y, ey0[next]);
+                }
+
+                // 移除yMax = y的边，剩余的边仍然有序
+                int kept = 0;
+                for (int i = 0; i < active; i++) {
+                    if (ey1[aet[i]] != y) {
+                        aet[kept++] = aet[i];
+                    }
+                }
+                active = kept;
+
+                // 新边先按x排序，再从尾部归并进AET；x相同时已有的边在前
+                int added = 0;
+                while (next < c && ey0[next] == y) {
+                    incoming[added++] = next++;
+                }
+                if (added > 0) {
+                    insertionSort(incoming, 1, added, fx);
+                    int i = active - 1;
+                    int j = added - 1;
+                    for (int k = active + added - 1; j >= 0; k--) {
+                        if (i >= 0 && fx[aet[i]] > fx[incoming[j]]) {
+                            aet[k] = aet[i--];
+                        } else {
+                            aet[k] = incoming[j--];
+                        }
+                    }
+                    active += added;
+                }
+
+                // 填充扫描线：奇偶规则两两配对；非零规则从左往右累加边的方向，环绕数不为0的区间即为内部
+                // 左侧的边使矩形左缘已在内部时，第一段从x0开始；右侧的边去掉后没有配对的最后一段延伸到x1
+                if (windingRule == Path2D.WIND_EVEN_ODD) {
+                    int i = 0;
+                    if ((wind0 & 1) != 0) {
+                        int end = active > 0 ? round(fx[aet[0]]) : x1;
+                        if (end >= x0) {
+                            sink.span(x0, end, y);
+                        }
+                        i = 1;
+                    }
+                    for (; i + 1 < active; i += 2) {
+                        sink.span(round(fx[aet[i]]), round(fx[aet[i + 1]]), y);
+                    }
+                    if (clipped && i < active && round(fx[aet[i]]) <= x1) {
+                        sink.span(round(fx[aet[i]]), x1, y);
+                    }
+                } else {
+                    int wind = wind0;
+                    int start = x0;
+                    for (int i = 0; i < active; i++) {
+                        int x = round(fx[aet[i]]);
+                        if (wind == 0) {
+                            start = x;
+                        }
+                        wind += ew[aet[i]];
+                        if (wind == 0 && x >= start) {
+                            sink.span(start, x, y);
+                        }
+                    }
+                    if (clipped && wind != 0 && start <= x1) {
+                        sink.span(start, x1, y);
+                    }
+                }
+
+                // 更新x值，同时记录第一个顺序被打乱（边相交）的位置
+                int firstCrossing = -1;
+                for (int i = 0; i < active; i++) {
+                    step(fx, work, aet[i]);
+                    if (firstCrossing < 0 && i > 0 && fx[aet[i - 1]] > fx[aet[i]]) {
+                        firstCrossing = i;
+                    }
+                }
+
+                // 相邻扫描线之间边的顺序很少变化，只在出现交叉时从交叉处做插入排序修正
+                if (firstCrossing > 0) {
+                    insertionSort(aet, firstCrossing, active, fx);
+                }
+            }
+        }
+
+        // 交点四舍五入到像素（0.5向上）；阈值是整数，对floor后的定点数判断与对精确值判断等价
+        private static int round(long fx) {
+            return (int) ((fx + (1L << 31)) >> 32);
+        }
+
+        // 下移一行；误差项满分母时进位，是否进位无规律可循，用符号位做掩码代替分支
+        private static void step(long[] fx, long[] work, int j) {
+            int w = j * WORK;
+            long h = work[w + W_HEIGHT];
+            long r = work[w + W_ERR] + work[w + W_ERR_STEP] - h;
+            long borrow = r >> 63; // 未满分母时为-1，否则为0
+            work[w + W_ERR] = r + (h & borrow);
+            fx[j] += work[w + W_STEP] + 1 + borrow;
         }
     }
 
@@ -50,6 +306,23 @@ public class EdgeFill extends JPanel {
             }
         });
         
+        // 自相交或自重叠的多边形在两种规则下的内部不同
+        JComboBox<String> ruleBox = new JComboBox<>(new String[]{"奇偶规则", "非零规则"});
+        ruleBox.addActionListener(e -> {
+            windingRule = ruleBox.getSelectedIndex() == 0 ? Path2D.WIND_EVEN_ODD : Path2D.WIND_NON_ZERO;
+            if (isFilled) {
+                repaint();
+            }
+        });
+
+        JCheckBox antialiasBox = new JCheckBox("反走样");
+        antialiasBox.addActionListener(e -> {
+            antialiased = antialiasBox.isSelected();
+            if (isFilled) {
+                repaint();
+            }
+        });
+
         JButton clearButton = new JButton("清除");
         clearButton.addActionListener(e -> {
             points.clear();
@@ -59,6 +332,8 @@ public class EdgeFill extends JPanel {
 
         controlPanel.add(fillButton);
         controlPanel.add(colorButton);
+        controlPanel.add(ruleBox);
+        controlPanel.add(antialiasBox);
         controlPanel.add(clearButton);
         add(controlPanel, BorderLayout.NORTH);
     }
@@ -103,78 +378,73 @@ public class EdgeFill extends JPanel {
 
         // 填充多边形
         if (isFilled && points.size() > 2) {
-            g2d.setColor(fillColor);
-            edgeFill(g2d);
+            raster = RasterPixelSink.resize(raster, getWidth(), getHeight());
+            raster.clear();
+            raster.setColor(fillColor);
+            if (antialiased) {
+                coverageFill.fill(points, raster, windingRule);
+            } else {
+                edgeFill(points, raster, windingRule);
+            }
+            g2d.drawImage(raster.getImage(), 0, 0, null);
         }
     }
 
-    private void edgeFill(Graphics2D g) {
-        // 找到多边形的边界
-        int minY = Integer.MAX_VALUE;
-        int maxY = Integer.MIN_VALUE;
-        for (Point p : points) {
-            minY = Math.min(minY, p.y);
-            maxY = Math.max(maxY, p.y);
-        }
+    static void edgeFill(List<Point> points, PixelSink sink) {
+        edgeFill(points, sink, Path2D.WIND_EVEN_ODD);
+    }
 
-        // 创建边表
-        @SuppressWarnings("unchecked")
-        ArrayList<Edge>[] ET = (ArrayList<Edge>[]) new ArrayList[maxY + 1];
-        for (int i = 0; i <= maxY; i++) {
-            ET[i] = new ArrayList<>();
-        }
+    // windingRule为Path2D.WIND_EVEN_ODD（奇偶规则）或Path2D.WIND_NON_ZERO（非零环绕数规则）
+    static void edgeFill(List<Point> points, PixelSink sink, int windingRule) {
+        edgeFill(points, sink, Integer.MIN_VALUE, Integer.MAX_VALUE, windingRule);
+    }
 
-        // 构建边表
-        for (int i = 0; i < points.size() - 1; i++) {
-            Point p1 = points.get(i);
-            Point p2 = points.get(i + 1);
-            
-            // 忽略水平边
-            if (p1.y == p2.y) continue;
-            
-            // 确保p1的y坐标小于p2的y坐标
-            if (p1.y > p2.y) {
-                Point temp = p1;
-                p1 = p2;
-                p2 = temp;
-            }
-            
-            // 计算斜率的倒数
-            float dx = (float)(p2.x - p1.x) / (p2.y - p1.y);
-            
-            // 创建新边并添加到边表
-            Edge edge = new Edge(p2.y, p1.x, dx);
-            ET[p1.y].add(edge);
+    static void edgeFill(List<Point> points, PixelSink sink, int yFrom, int yTo) {
+        edgeFill(points, sink, yFrom, yTo, Path2D.WIND_EVEN_ODD);
+    }
+
+    // 只输出扫描线yFrom到yTo（含）之间的部分；已经开始的边由闭式直接定位到yFrom行，
+    // yFrom之前的扫描线不再计算，到达yTo后即停止
+    static void edgeFill(List<Point> points, PixelSink sink, int yFrom, int yTo, int windingRule) {
+        // 创建边表，内存只与边数有关，与多边形在屏幕上的位置无关
+        new EdgeTable(points).fill(sink, yFrom, yTo, windingRule);
+    }
+
+    // 按交点x对边下标a[0, to)做稳定的插入排序，a[0, start)须已有序；几乎有序时接近线性
+    private static void insertionSort(int[] a, int start, int to, long[] key) {
+        for (int i = start; i < to; i++) {
+            int e = a[i];
+            long k = key[e];
+            int j = i - 1;
+            while (j >= 0 && key[a[j]] > k) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = e;
         }
+    }
 
-        // 活动边表
-        ArrayList<Edge> AET = new ArrayList<>();
-
-        // 扫描线算法
-        for (int y = minY; y <= maxY; y++) {
-            // 将新边加入AET
-            AET.addAll(ET[y]);
-            
-            // 移除yMax = y的边
-            final int currentY = y;
-            AET.removeIf(edge -> edge.yMax == currentY);
-            
-            // 按x值排序
-            AET.sort((e1, e2) -> Float.compare(e1.xMin, e2.xMin));
-            
-            // 填充扫描线
-            for (int i = 0; i < AET.size() - 1; i += 2) {
-                if (i + 1 < AET.size()) {
-                    int x1 = Math.round(AET.get(i).xMin);
-                    int x2 = Math.round(AET.get(i + 1).xMin);
-                    g.drawLine(x1, y, x2, y);
+    // 按交点x对a[0, n)排序：少量元素用插入排序，较多时自底向上归并，tmp为同样长度的缓冲区
+    private static void sortByX(int[] a, int n, int[] tmp, long[] key) {
+        if (n <= 32) {
+            insertionSort(a, 1, n, key);
+            return;
+        }
+        int[] src = a, dst = tmp;
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                int mid = Math.min(lo + width, n), hi = Math.min(lo + 2 * width, n);
+                int i = lo, j = mid;
+                for (int k = lo; k < hi; k++) {
+                    dst[k] = j >= hi || (i < mid && key[src[i]] <= key[src[j]]) ? src[i++] : src[j++];
                 }
             }
-            
-            // 更新x值
-            for (Edge edge : AET) {
-                edge.xMin += edge.dx;
-            }
+            int[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
         }
     }
 
@@ -0,0 +1,25 @@
+import java.awt.Graphics;
+
+// 通过Graphics逐点绘制，每个像素都要走一次Java2D管线，仅用于兼容
+class GraphicsPixelSink implements PixelSink {
+    private final Graphics g;
+
+    GraphicsPixelSink(Graphics g) {
+        this.g = g;
+    }
+
+    @Override
+    public void plot(int x, int y) {
+        g.drawLine(x, y, x, y);
+    }
+
+    @Override
+    public void span(int x0, int x1, int y) {
+        g.drawLine(x0, y, x1, y);
+    }
+
+    @Override
+    public void vspan(int x, int y0, int y1) {
+        g.drawLine(x, y0, x, y1);
+    }
+}
@@ -0,0 +1,28 @@
+// 像素输出接口：光栅化算法只负责计算像素坐标，像素最终写到哪里由实现决定
+interface PixelSink {
+    void plot(int x, int y);
+
+    // 水平线段[x0, x1]，默认逐点输出，光栅实现可整段写入
+    default void span(int x0, int x1, int y) {
+        if (x0 > x1) {
+            int t = x0;
+            x0 = x1;
+            x1 = t;
+        }
+        for (int x = x0; x <= x1; x++) {
+            plot(x, y);
+        }
+    }
+
+    // 竖直线段[y0, y1]，默认逐点输出
+    default void vspan(int x, int y0, int y1) {
+        if (y0 > y1) {
+            int t = y0;
+            y0 = y1;
+            y1 = t;
+        }
+        for (int y = y0; y <= y1; y++) {
+            plot(x, y);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.Path2D;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import javax.swing.*;
 
 public class PolygonFill extends JPanel {
@@ -10,6 +12,12 @@ public class PolygonFill extends JPanel {
     private Color fillColor = Color.RED;
     private boolean isDrawing = false;
     private boolean isFilled = false;
+    private RasterPixelSink raster; // 填充结果写入的离屏像素缓冲
+    private final CoverageFill coverageFill = new CoverageFill();
+    private boolean antialiased = false; // 按覆盖率填充边缘像素
+    private final ScanLineFiller filler = new ScanLineFiller();
+    // 顶点数×扫描线数超过该值时改用多线程并行填充
+    private static final long PARALLEL_THRESHOLD = 1 << 20;
 
     public PolygonFill() {
         setPreferredSize(new Dimension(800, 600));
@@ -38,6 +46,14 @@ public class PolygonFill extends JPanel {
             }
         });
         
+        JCheckBox antialiasBox = new JCheckBox("反走样");
+        antialiasBox.addActionListener(e -> {
+            antialiased = antialiasBox.isSelected();
+            if (isFilled) {
+                repaint();
+            }
+        });
+
         JButton clearButton = new JButton("清除");
         clearButton.addActionListener(e -> {
             points.clear();
@@ -47,6 +63,7 @@ public class PolygonFill extends JPanel {
 
         controlPanel.add(fillButton);
         controlPanel.add(colorButton);
+        controlPanel.add(antialiasBox);
         controlPanel.add(clearButton);
         add(controlPanel, BorderLayout.NORTH);
     }
@@ -90,56 +107,183 @@ public class PolygonFill extends JPanel {
 
         // 填充多边形
         if (isFilled && points.size() > 2) {
-            g2d.setColor(fillColor);
-            scanLineFill(g2d);
+            raster = RasterPixelSink.resize(raster, getWidth(), getHeight());
+            raster.clear();
+            raster.setColor(fillColor);
+            filler.setPolygon(points);
+            if (antialiased) {
+                coverageFill.fill(points, raster, Path2D.WIND_EVEN_ODD);
+            } else if ((long) points.size() * getHeight() > PARALLEL_THRESHOLD) {
+                filler.fillParallel(raster, ForkJoinPool.commonPool());
+            } else {
+                filler.fill(raster);
+            }
+            g2d.drawImage(raster.getImage(), 0, 0, null);
         }
     }
 
-    private void scanLineFill(Graphics2D g) {
-        // 找到多边形的边界
-        int minY = Integer.MAX_VALUE;
-        int maxY = Integer.MIN_VALUE;
-        for (Point p : points) {
-            minY = Math.min(minY, p.y);
-            maxY = Math.max(maxY, p.y);
+    static void scanLineFill(List<Point> points, PixelSink sink) {
+        new ScanLineFiller().setPolygon(points).fill(sink);
+    }
+
+    static void parallelScanLineFill(List<Point> points, RasterPixelSink raster, ForkJoinPool pool) {
+        new ScanLineFiller().setPolygon(points).fillParallel(raster, pool);
+    }
+
+    // 扫描线填充器：顶点只在setPolygon时转换一次为int数组，交点缓冲区重复使用，
+    // 预热后反复填充不会产生任何垃圾对象
+    static final class ScanLineFiller {
+        private int[] xs = new int[0];
+        private int[] ys = new int[0];
+        private int n; // 顶点数（闭合多边形末尾重复起点）
+        private int minY, maxY;
+        private int[] intersections = new int[0];
+
+        ScanLineFiller setPolygon(List<Point> points) {
+            n = points.size();
+            if (xs.length < n) {
+                xs = new int[n];
+                ys = new int[n];
+                intersections = new int[n];
+            }
+            // 找到多边形的边界
+            minY = Integer.MAX_VALUE;
+            maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < n; i++) {
+                Point p = points.get(i);
+                xs[i] = p.x;
+                ys[i] = p.y;
+                minY = Math.min(minY, p.y);
+                maxY = Math.max(maxY, p.y);
+            }
+            return this;
+        }
+
+        void fill(PixelSink sink) {
+            if (n < 2) return;
+            fillRows(minY, maxY, intersections, sink);
         }
 
-        // 对每一条扫描线
-        for (int y = minY; y <= maxY; y++) {
-            List<Integer> intersections = new ArrayList<>();
-            
-            // 计算扫描线与多边形边的交点
-            for (int i = 0; i < points.size() - 1; i++) {
-                Point p1 = points.get(i);
-                Point p2 = points.get(i + 1);
+        // 只填充扫描线yFrom到yTo（含）之间的部分，通常传入光栅的行范围，画布外的行不再逐行求交点
+        void fill(PixelSink sink, int yFrom, int yTo) {
+            if (n < 2) return;
+            fillRows(Math.max(minY, yFrom), Math.min(maxY, yTo), intersections, sink);
+        }
+
+        // 把y范围切分成若干条带交给ForkJoinPool，各条带只写自己的行，互不重叠，无需加锁
+        void fillParallel(RasterPixelSink raster, ForkJoinPool pool) {
+            if (n < 2) return;
+            // 光栅之外的扫描线不会产生像素，直接裁掉
+            int yFrom = Math.max(minY, 0);
+            int yTo = Math.min(maxY, raster.getHeight() - 1);
+            if (yFrom > yTo) return;
+
+            int rows = yTo - yFrom + 1;
+            int minBand = Math.max(8, rows / (pool.getParallelism() * 8));
+            pool.invoke(new FillBand(this, yFrom, yTo, minBand, raster));
+        }
+
+        // 填充扫描线yFrom到yTo（含）之间的部分，buf用于存放交点
+        private void fillRows(int yFrom, int yTo, int[] buf, PixelSink sink) {
+            int[] xs = this.xs;
+            int[] ys = this.ys;
+            // 对每一条扫描线
+            for (int y = yFrom; y <= yTo; y++) {
+                int count = 0;
                 
-                // 确保p1的y坐标小于p2的y坐标
-                if (p1.y > p2.y) {
-                    Point temp = p1;
-                    p1 = p2;
-                    p2 = temp;
+                // 计算扫描线与多边形边的交点
+                for (int i = 0; i < n - 1; i++) {
+                    int x1 = xs[i], y1 = ys[i];
+                    int x2 = xs[i + 1], y2 = ys[i + 1];
+                    
+                    // 确保(x1, y1)的y坐标小于(x2, y2)的y坐标
+                    if (y1 > y2) {
+                        int t = x1; x1 = x2; x2 = t;
+                        t = y1; y1 = y2; y2 = t;
+                    }
+                    
+                    // 如果扫描线与边相交，计算交点的x坐标
+                    if (y >= y1 && y < y2) {
+                        buf[count++] = (int) (x1 + (long) (y - y1) * (x2 - x1) / (y2 - y1));
+                    }
                 }
                 
-                // 如果扫描线与边相交
-                if (y >= p1.y && y < p2.y && p1.y != p2.y) {
-                    // 计算交点的x坐标
-                    int x = p1.x + (y - p1.y) * (p2.x - p1.x) / (p2.y - p1.y);
-                    intersections.add(x);
+                // 对交点进行排序
+                sortInts(buf, count);
+                
+                // 两两配对，填充线段
+                for (int i = 0; i + 1 < count; i += 2) {
+                    sink.span(buf[i], buf[i + 1], y);
                 }
             }
-            
-            // 对交点进行排序
-            Collections.sort(intersections);
-            
-            // 两两配对，填充线段
-            for (int i = 0; i < intersections.size() - 1; i += 2) {
-                if (i + 1 < intersections.size()) {
-                    int x1 = intersections.get(i);
-                    int x2 = intersections.get(i + 1);
-                    g.drawLine(x1, y, x2, y);
+        }
+    }
+
+    private static class FillBand extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ScanLineFiller filler;
+        private final int yFrom, yTo;
+        private final int minBand; // 条带行数不大于该值时直接填充，不再切分
+        private final PixelSink sink;
+
+        FillBand(ScanLineFiller filler, int yFrom, int yTo, int minBand, PixelSink sink) {
+            this.filler = filler;
+            this.yFrom = yFrom;
+            this.yTo = yTo;
+            this.minBand = minBand;
+            this.sink = sink;
+        }
+
+        @Override
+        protected void compute() {
+            if (yTo - yFrom + 1 <= minBand) {
+                // 每个条带使用自己的交点缓冲区
+                filler.fillRows(yFrom, yTo, new int[filler.n], sink);
+                return;
+            }
+            int mid = (yFrom + yTo) >>> 1;
+            invokeAll(new FillBand(filler, yFrom, mid, minBand, sink),
+                      new FillBand(filler, mid + 1, yTo, minBand, sink));
+        }
+    }
+
+    // 原地排序a[0, n)：少量元素用插入排序，较多时用堆排序，都不分配额外内存
+    private static void sortInts(int[] a, int n) {
+        if (n <= 32) {
+            for (int i = 1; i < n; i++) {
+                int v = a[i];
+                int j = i - 1;
+                while (j >= 0 && a[j] > v) {
+                    a[j + 1] = a[j];
+                    j--;
                 }
+                a[j + 1] = v;
             }
+            return;
+        }
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(a, i, n);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            int t = a[0];
+            a[0] = a[end];
+            a[end] = t;
+            siftDown(a, 0, end);
+        }
+    }
+
+    private static void siftDown(int[] a, int i, int n) {
+        int v = a[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) break;
+            if (child + 1 < n && a[child + 1] > a[child]) child++;
+            if (a[child] <= v) break;
+            a[i] = a[child];
+            i = child;
         }
+        a[i] = v;
     }
 
     public static void main(String[] args) {
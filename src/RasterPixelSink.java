@@ -0,0 +1,175 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+// 直接写入BufferedImage底层int[]的像素输出，不依赖显示设备
+class RasterPixelSink implements PixelSink {
+    private final BufferedImage image;
+    private final int[] pixels; // ARGB像素，按行存储
+    private final int width;
+    private final int height;
+    private final int clipX0, clipY0, clipX1, clipY1; // 允许写入的区域（含边界）
+    private int color = 0xFF000000;
+
+    RasterPixelSink(int width, int height) {
+        this.width = width;
+        this.height = height;
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        clipX0 = 0;
+        clipY0 = 0;
+        clipX1 = width - 1;
+        clipY1 = height - 1;
+    }
+
+    private RasterPixelSink(RasterPixelSink parent, int x0, int y0, int x1, int y1) {
+        image = parent.image;
+        pixels = parent.pixels;
+        width = parent.width;
+        height = parent.height;
+        color = parent.color;
+        clipX0 = Math.max(x0, parent.clipX0);
+        clipY0 = Math.max(y0, parent.clipY0);
+        clipX1 = Math.min(x1, parent.clipX1);
+        clipY1 = Math.min(y1, parent.clipY1);
+    }
+
+    // 共享同一像素缓冲、只写入[x0, x1]×[y0, y1]（含边界）的视图，颜色与原光栅相互独立
+    // 各视图的区域互不重叠时，可以在不同线程中同时写入而无需加锁
+    RasterPixelSink clip(int x0, int y0, int x1, int y1) {
+        return new RasterPixelSink(this, x0, y0, x1, y1);
+    }
+
+    // 尺寸不变时复用已有的缓冲区，避免每帧重新分配
+    static RasterPixelSink resize(RasterPixelSink raster, int width, int height) {
+        width = Math.max(1, width);
+        height = Math.max(1, height);
+        if (raster != null && raster.width == width && raster.height == height) {
+            return raster;
+        }
+        return new RasterPixelSink(width, height);
+    }
+
+    void setColor(Color c) {
+        color = c.getRGB();
+    }
+
+    // 直接设置ARGB颜色值
+    void setColor(int argb) {
+        color = argb;
+    }
+
+    // 清空可写区域
+    void clear() {
+        if (clipX0 == 0 && clipY0 == 0 && clipX1 == width - 1 && clipY1 == height - 1) {
+            Arrays.fill(pixels, 0);
+            return;
+        }
+        for (int y = clipY0; y <= clipY1 && clipX0 <= clipX1; y++) {
+            Arrays.fill(pixels, y * width + clipX0, y * width + clipX1 + 1, 0);
+        }
+    }
+
+    @Override
+    public void plot(int x, int y) {
+        if (x >= clipX0 && x <= clipX1 && y >= clipY0 && y <= clipY1) {
+            pixels[y * width + x] = color;
+        }
+    }
+
+    // 先裁剪到可写区域，再对整行区间做一次批量填充
+    @Override
+    public void span(int x0, int x1, int y) {
+        if (y < clipY0 || y > clipY1) return;
+        if (x0 > x1) {
+            int t = x0;
+            x0 = x1;
+            x1 = t;
+        }
+        if (x0 < clipX0) x0 = clipX0;
+        if (x1 > clipX1) x1 = clipX1;
+        if (x0 > x1) return;
+        int row = y * width;
+        Arrays.fill(pixels, row + x0, row + x1 + 1, color);
+    }
+
+    // 竖直线段裁剪后按行跨度逐个写入
+    @Override
+    public void vspan(int x, int y0, int y1) {
+        if (x < clipX0 || x > clipX1) return;
+        if (y0 > y1) {
+            int t = y0;
+            y0 = y1;
+            y1 = t;
+        }
+        if (y0 < clipY0) y0 = clipY0;
+        if (y1 > clipY1) y1 = clipY1;
+        for (int i = y0 * width + x, end = y1 * width + x; i <= end; i += width) {
+            pixels[i] = color;
+        }
+    }
+
+    // 以coverage/255的覆盖率把当前颜色按源在上(SrcOver)混合到(x, y)，用于反走样绘制
+    // 像素为非预乘的ARGB；常见的不透明目标在这里直接处理，其余情况交给blendGeneral，保持本方法足够小以便内联
+    void blend(int x, int y, int coverage) {
+        if (x < clipX0 || x > clipX1 || y < clipY0 || y > clipY1) return;
+        int sa = (color >>> 24) * coverage / 255;
+        if (sa == 0) return;
+        int i = y * width + x;
+        int dst = pixels[i];
+        if (dst >>> 24 == 255) {
+            // 红蓝两个通道打包在一起计算，权重换算到0~256后用移位代替除法
+            int w = sa + (sa >> 7);
+            int rb = ((color & 0xFF00FF) * w + (dst & 0xFF00FF) * (256 - w)) >>> 8 & 0xFF00FF;
+            int g = ((color & 0xFF00) * w + (dst & 0xFF00) * (256 - w)) >>> 8 & 0xFF00;
+            pixels[i] = 0xFF000000 | rb | g;
+        } else {
+            pixels[i] = blendGeneral(dst, sa);
+        }
+    }
+
+    // 以同一覆盖率混合一段水平像素[x0, x1]；不透明颜色完全覆盖时直接整段填充
+    void blendSpan(int x0, int x1, int y, int coverage) {
+        if (coverage >= 255 && color >>> 24 == 255) {
+            span(x0, x1, y);
+            return;
+        }
+        if (y < clipY0 || y > clipY1) return;
+        for (int x = Math.max(x0, clipX0), end = Math.min(x1, clipX1); x <= end; x++) {
+            blend(x, y, coverage);
+        }
+    }
+
+    // 目标半透明或全透明时的SrcOver：outA = sa + da(1 - sa)，各通道按不透明度加权平均
+    private int blendGeneral(int dst, int sa) {
+        int da = dst >>> 24;
+        if (sa == 255 || da == 0) {
+            return sa << 24 | (color & 0xFFFFFF);
+        }
+        int sr = color >> 16 & 0xFF, sg = color >> 8 & 0xFF, sb = color & 0xFF;
+        int dr = dst >> 16 & 0xFF, dg = dst >> 8 & 0xFF, db = dst & 0xFF;
+        int dw = da * (255 - sa);           // 目标的权重（×255）
+        int outA255 = sa * 255 + dw;        // outA×255
+        return (outA255 / 255) << 24
+                | (sr * sa * 255 + dr * dw) / outA255 << 16
+                | (sg * sa * 255 + dg * dw) / outA255 << 8
+                | (sb * sa * 255 + db * dw) / outA255;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int[] getPixels() {
+        return pixels;
+    }
+
+    BufferedImage getImage() {
+        return image;
+    }
+}
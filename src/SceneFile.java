@@ -0,0 +1,324 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+// 二进制场景文件，全部数据为小端序，各段按8字节对齐：
+//   文件头（64字节）
+//     0  int   魔数 "SCN1"
+//     4  int   版本号 1
+//     8  int   图形数 n
+//     12 int   画布宽（16位）和高（16位）
+//     16 long  顶点总数 v
+//     24 long  类型表位置：n个byte，每个图形的类型
+//     32 long  偏移表位置：n+1个long，图形i的顶点为[offset[i], offset[i+1])
+//     40 long  矩阵表位置：n×6个double，累积仿射矩阵 m00 m01 m02 m10 m11 m12
+//     48 long  x坐标表位置：v个double
+//     56 long  y坐标表位置：v个double
+// 打开时只读取文件头并用FileChannel.map映射各段，再检查一遍偏移表，不解析也不复制顶点数据，
+// 耗时只与图形数有关，与顶点数无关；渲染时直接从映射中读取顶点
+class SceneFile {
+    static final int MAGIC = 'S' | 'C' << 8 | 'N' << 16 | '1' << 24;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final byte TYPE_POLYGON = 1; // 由直线段组成的闭合轮廓
+    private static final int BATCH = 1 << 20; // render每批提交的线段数
+
+    private final int shapeCount;
+    private final int canvasWidth, canvasHeight;
+    private final long vertexCount;
+    private final Section types, offsets, matrices, xs, ys;
+
+    private SceneFile(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("场景文件不完整");
+            }
+        }
+        header.flip();
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("不是场景文件");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("不支持的场景文件版本: " + header.getInt(4));
+        }
+        shapeCount = header.getInt(8);
+        canvasWidth = header.getInt(12) & 0xFFFF;
+        canvasHeight = header.getInt(12) >>> 16;
+        vertexCount = header.getLong(16);
+        if (shapeCount < 0 || vertexCount < 0 || vertexCount > channel.size() / 8) {
+            throw new IOException("场景文件头损坏");
+        }
+        types = new Section(channel, header.getLong(24), shapeCount);
+        offsets = new Section(channel, header.getLong(32), (shapeCount + 1L) * 8);
+        matrices = new Section(channel, header.getLong(40), shapeCount * 48L);
+        xs = new Section(channel, header.getLong(48), vertexCount * 8);
+        ys = new Section(channel, header.getLong(56), vertexCount * 8);
+
+        // render和loadInto按偏移表直接读取顶点，偏移须单调不减且不超过顶点总数；
+        // loadInto把单个图形的顶点复制到int下标的数组中，每个图形的顶点数也不能超出int范围
+        long previous = 0;
+        for (int i = 0; i <= shapeCount; i++) {
+            long offset = offsets.getLong(i);
+            if (offset < previous || offset > vertexCount || (i > 0 && offset - previous > Integer.MAX_VALUE)) {
+                throw new IOException("场景文件的偏移表损坏: offset[" + i + "] = " + offset);
+            }
+            previous = offset;
+        }
+    }
+
+    static SceneFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // 映射在通道关闭后仍然有效
+            return new SceneFile(channel);
+        }
+    }
+
+    int shapeCount() {
+        return shapeCount;
+    }
+
+    long vertexCount() {
+        return vertexCount;
+    }
+
+    int canvasWidth() {
+        return canvasWidth;
+    }
+
+    int canvasHeight() {
+        return canvasHeight;
+    }
+
+    byte type(int id) {
+        return types.getByte(id);
+    }
+
+    long vertexStart(int id) {
+        return offsets.getLong(id);
+    }
+
+    long vertexEnd(int id) {
+        return offsets.getLong(id + 1L);
+    }
+
+    double x(long i) {
+        return xs.getDouble(i);
+    }
+
+    double y(long i) {
+        return ys.getDouble(i);
+    }
+
+    void matrix(int id, double[] out) {
+        for (int k = 0; k < 6; k++) {
+            out[k] = matrices.getDouble(id * 6L + k);
+        }
+    }
+
+    // 直接从映射中读取顶点，变换后取整，把每个图形的轮廓按直线段提交给分块渲染器，在raster上用Bresenham直线描出；
+    // 每积攒BATCH条线段就渲染一次并清空，渲染器占用的内存与场景大小无关
+    void render(TileRenderer tiles, RasterPixelSink raster, ForkJoinPool pool) {
+        double[] m = new double[6];
+        for (int id = 0; id < shapeCount; id++) {
+            long from = vertexStart(id), to = vertexEnd(id);
+            if (type(id) != TYPE_POLYGON || to <= from) continue;
+            matrix(id, m);
+            int firstX = 0, firstY = 0, lastX = 0, lastY = 0;
+            for (long i = from; i < to; i++) {
+                double x = xs.getDouble(i), y = ys.getDouble(i);
+                int px = (int) Math.round(m[0] * x + m[1] * y + m[2]);
+                int py = (int) Math.round(m[3] * x + m[4] * y + m[5]);
+                if (i == from) {
+                    firstX = px;
+                    firstY = py;
+                } else {
+                    tiles.line(lastX, lastY, px, py);
+                }
+                lastX = px;
+                lastY = py;
+            }
+            tiles.line(lastX, lastY, firstX, firstY);
+            if (tiles.size() >= BATCH) {
+                tiles.render(raster, pool);
+                tiles.clear();
+            }
+        }
+        tiles.render(raster, pool);
+        tiles.clear();
+    }
+
+    // 复制到可编辑的ShapeStore中（交互编辑需要堆内数组），返回导入的图形数
+    int loadInto(ShapeStore store) {
+        double[] m = new double[6];
+        double[] bx = new double[16], by = new double[16];
+        int loaded = 0;
+        for (int id = 0; id < shapeCount; id++) {
+            long from = vertexStart(id), to = vertexEnd(id);
+            if (type(id) != TYPE_POLYGON) continue;
+            int n = (int) (to - from);
+            if (bx.length < n) {
+                bx = new double[n];
+                by = new double[n];
+            }
+            for (int i = 0; i < n; i++) {
+                bx[i] = xs.getDouble(from + i);
+                by[i] = ys.getDouble(from + i);
+            }
+            matrix(id, m);
+            store.add(bx, by, n, m);
+            loaded++;
+        }
+        return loaded;
+    }
+
+    // 按上述格式写出ShapeStore中的全部图形
+    static void write(ShapeStore store, int canvasWidth, int canvasHeight, Path file) throws IOException {
+        int n = store.size();
+        long v = store.vertexCount();
+        long typesAt = HEADER_SIZE;
+        long offsetsAt = align(typesAt + n);
+        long matricesAt = offsetsAt + (n + 1L) * 8;
+        long xsAt = matricesAt + n * 48L;
+        long ysAt = xsAt + v * 8;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer out = new Writer(channel);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(n);
+            out.putInt(Math.min(canvasWidth, 0xFFFF) | Math.min(canvasHeight, 0xFFFF) << 16);
+            out.putLong(v);
+            out.putLong(typesAt);
+            out.putLong(offsetsAt);
+            out.putLong(matricesAt);
+            out.putLong(xsAt);
+            out.putLong(ysAt);
+
+            for (int id = 0; id < n; id++) {
+                out.putByte(TYPE_POLYGON);
+            }
+            out.padTo(offsetsAt);
+            // 导出后的顶点连续存放，偏移重新从0开始计算
+            long position = 0;
+            for (int id = 0; id < n; id++) {
+                out.putLong(position);
+                position += store.vertexLength(id);
+            }
+            out.putLong(position);
+            double[] m = new double[6];
+            for (int id = 0; id < n; id++) {
+                store.matrix(id, m);
+                for (double value : m) {
+                    out.putDouble(value);
+                }
+            }
+            for (int id = 0; id < n; id++) {
+                for (int i = store.vertexOffset(id), end = i + store.vertexLength(id); i < end; i++) {
+                    out.putDouble(store.x(i));
+                }
+            }
+            for (int id = 0; id < n; id++) {
+                for (int i = store.vertexOffset(id), end = i + store.vertexLength(id); i < end; i++) {
+                    out.putDouble(store.y(i));
+                }
+            }
+            out.flush();
+        }
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    // 文件中的一段，超过2GB时分成多个映射；块大小是8的倍数，单个元素不会跨块
+    private static class Section {
+        private static final int CHUNK_SHIFT = 30;
+        private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+        private final ByteBuffer[] chunks;
+
+        Section(FileChannel channel, long position, long size) throws IOException {
+            if (position < HEADER_SIZE || (position & 7) != 0 || position > channel.size() - size) {
+                throw new IOException("场景文件的段超出文件范围");
+            }
+            int n = (int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT);
+            chunks = new ByteBuffer[n];
+            for (int i = 0; i < n; i++) {
+                long start = (long) i << CHUNK_SHIFT;
+                long length = Math.min(size - start, 1L << CHUNK_SHIFT);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + start, length)
+                                   .order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        byte getByte(long i) {
+            return chunks[(int) (i >>> CHUNK_SHIFT)].get((int) (i & CHUNK_MASK));
+        }
+
+        long getLong(long i) {
+            long at = i * 8;
+            return chunks[(int) (at >>> CHUNK_SHIFT)].getLong((int) (at & CHUNK_MASK));
+        }
+
+        double getDouble(long i) {
+            long at = i * 8;
+            return chunks[(int) (at >>> CHUNK_SHIFT)].getDouble((int) (at & CHUNK_MASK));
+        }
+    }
+
+    // 经固定大小的缓冲区顺序写出，写满后整块交给通道
+    private static class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private long written;
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putByte(byte v) throws IOException {
+            ensure(1);
+            buffer.put(v);
+        }
+
+        void putInt(int v) throws IOException {
+            ensure(4);
+            buffer.putInt(v);
+        }
+
+        void putLong(long v) throws IOException {
+            ensure(8);
+            buffer.putLong(v);
+        }
+
+        void putDouble(double v) throws IOException {
+            ensure(8);
+            buffer.putDouble(v);
+        }
+
+        void padTo(long position) throws IOException {
+            while (written + buffer.position() < position) {
+                putByte((byte) 0);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
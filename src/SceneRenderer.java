@@ -0,0 +1,413 @@
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import javax.imageio.ImageIO;
+
+// 无界面的批量渲染：逐行读取文本场景，用各程序中的光栅化算法画到离屏图像，再输出PNG
+// 每行读入后立即绘制，不在内存中保留整个场景
+//
+// 用法: java -Djava.awt.headless=true SceneRenderer 场景文件 输出.png [场景文件 输出.png ...]
+// 场景文件为"-"时从标准输入读取；扩展名为.scn的二进制场景（格式见SceneFile）直接映射后绘制
+//
+// 场景格式（每行一条命令，#开头为注释）：
+//   size 宽 高                    画布尺寸，须在绘制命令之前，默认800×600，每边不超过16384
+//   background #RRGGBB            用颜色填满画布
+//   color #RRGGBB                 之后图元使用的颜色，默认黑色
+//   line x0 y0 x1 y1              Bresenham直线
+//   circle cx cy r                Bresenham圆
+//   fillcircle cx cy r            实心圆
+//   ellipse cx cy a b             Bresenham椭圆
+//   polygon x0 y0 x1 y1 ...       扫描线填充多边形，自动闭合
+//   fillrule evenodd|nonzero      polygon的填充规则，默认evenodd；nonzero时改用边表填充
+//   antialias on|off              polygon是否按覆盖率反走样填充，默认off
+//   square|hexagon|star x y size  图形变换工具中的三种图形，描出轮廓
+//   linewidth w                   line和三种图形轮廓的线宽，默认1（Bresenham直线）
+//   linejoin miter|bevel|round    线宽大于1时拐角的连接方式，默认miter
+//   translate dx dy               以下变换都叠加到当前变换之后，作用于polygon和三种图形
+//   rotate 角度 [cx cy]           角度单位为度，默认绕原点
+//   scale sx [sy [cx cy]]
+//   shear shx shy
+//   identity                      恢复单位变换
+public class SceneRenderer {
+    private static final int DEFAULT_WIDTH = 800;
+    private static final int DEFAULT_HEIGHT = 600;
+    // 画布每边的上限：光栅是width*height个int的数组，16384×16384已占1GB
+    private static final int MAX_SIZE = 16384;
+    // 多边形顶点变换后的坐标范围：任意两个顶点的坐标之差小于2^31，填充时的定点运算和求交点才不会溢出
+    private static final double MAX_COORDINATE = 1 << 30;
+
+    private RasterPixelSink raster;
+    private int width, height;
+    private double[][] matrix;
+    private Color currentColor;
+    private double lineWidth;
+    private int lineJoin;
+    private StrokeRasterizer stroker; // 线宽为1时为null
+    private int windingRule;
+    private boolean antialias;
+    private final CoverageFill coverageFill = new CoverageFill();
+    private final PolygonFill.ScanLineFiller filler = new PolygonFill.ScanLineFiller();
+    private final List<Point> points = new ArrayList<>();
+
+    // 渲染一个场景并写出PNG；多个场景依次渲染时复用同一块光栅
+    void render(Reader in, File out) throws IOException {
+        width = DEFAULT_WIDTH;
+        height = DEFAULT_HEIGHT;
+        matrix = identity();
+        boolean started = false;
+
+        BufferedReader reader = new BufferedReader(in);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] tokens = line.split("\\s+");
+            try {
+                if (tokens[0].equals("size")) {
+                    if (started) {
+                        throw new IllegalArgumentException("size必须出现在绘制命令之前");
+                    }
+                    expect(tokens, 3);
+                    width = positive(tokens[1]);
+                    height = positive(tokens[2]);
+                    continue;
+                }
+                if (!started) {
+                    begin();
+                    started = true;
+                }
+                execute(tokens);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("第" + lineNumber + "行: " + e.getMessage(), e);
+            }
+        }
+        if (!started) {
+            begin();
+        }
+        if (!ImageIO.write(raster.getImage(), "png", out)) {
+            throw new IOException("无法写出PNG: " + out);
+        }
+    }
+
+    // 二进制场景：映射文件后直接从映射中读取顶点，交给分块渲染器多线程绘制，画布尺寸取自文件头
+    void renderBinary(Path scene, File out) throws IOException {
+        SceneFile file = SceneFile.open(scene);
+        width = file.canvasWidth() > 0 ? file.canvasWidth() : DEFAULT_WIDTH;
+        height = file.canvasHeight() > 0 ? file.canvasHeight() : DEFAULT_HEIGHT;
+        if (width > MAX_SIZE || height > MAX_SIZE) {
+            throw new IOException("画布尺寸超过" + MAX_SIZE + ": " + width + "×" + height);
+        }
+        begin();
+        file.render(new TileRenderer(width, height), raster, ForkJoinPool.commonPool());
+        if (!ImageIO.write(raster.getImage(), "png", out)) {
+            throw new IOException("无法写出PNG: " + out);
+        }
+    }
+
+    private void begin() {
+        raster = RasterPixelSink.resize(raster, width, height);
+        raster.clear();
+        currentColor = Color.BLACK;
+        raster.setColor(currentColor);
+        lineWidth = 1;
+        lineJoin = StrokeRasterizer.JOIN_MITER;
+        stroker = null;
+        windingRule = Path2D.WIND_EVEN_ODD;
+        antialias = false;
+    }
+
+    private void execute(String[] t) {
+        int vx1 = width - 1, vy1 = height - 1;
+        switch (t[0]) {
+            case "background": {
+                expect(t, 2);
+                raster.setColor(Color.decode(t[1]));
+                for (int y = 0; y < height; y++) {
+                    raster.span(0, width - 1, y);
+                }
+                // background不改变当前颜色
+                raster.setColor(currentColor);
+                break;
+            }
+            case "color":
+                expect(t, 2);
+                currentColor = Color.decode(t[1]);
+                raster.setColor(currentColor);
+                break;
+            case "line":
+                expect(t, 5);
+                if (stroker != null) {
+                    stroker.strokeLine(integer(t[1]), integer(t[2]), integer(t[3]), integer(t[4]), raster);
+                } else {
+                    BresenhamLine.drawClippedLine(raster, integer(t[1]), integer(t[2]), integer(t[3]), integer(t[4]),
+                            0, 0, vx1, vy1);
+                }
+                break;
+            case "linewidth":
+                expect(t, 2);
+                lineWidth = number(t[1]);
+                if (!(lineWidth > 0)) {
+                    throw new IllegalArgumentException("线宽必须为正数: " + t[1]);
+                }
+                updateStroker();
+                break;
+            case "fillrule":
+                expect(t, 2);
+                if (t[1].equals("evenodd")) {
+                    windingRule = Path2D.WIND_EVEN_ODD;
+                } else if (t[1].equals("nonzero")) {
+                    windingRule = Path2D.WIND_NON_ZERO;
+                } else {
+                    throw new IllegalArgumentException("未知的填充规则 " + t[1]);
+                }
+                break;
+            case "antialias":
+                expect(t, 2);
+                if (!t[1].equals("on") && !t[1].equals("off")) {
+                    throw new IllegalArgumentException("antialias只能是on或off");
+                }
+                antialias = t[1].equals("on");
+                break;
+            case "linejoin":
+                expect(t, 2);
+                lineJoin = join(t[1]);
+                updateStroker();
+                break;
+            case "circle":
+                expect(t, 4);
+                BresenhamCircle.drawClippedCircle(raster, integer(t[1]), integer(t[2]), integer(t[3]), 0, 0, vx1, vy1);
+                break;
+            case "fillcircle":
+                expect(t, 4);
+                BresenhamCircle.fillClippedCircle(raster, integer(t[1]), integer(t[2]), integer(t[3]), 0, 0, vx1, vy1);
+                break;
+            case "ellipse":
+                expect(t, 5);
+                BresenhamEllipse.drawClippedEllipse(raster, integer(t[1]), integer(t[2]), integer(t[3]), integer(t[4]),
+                        0, 0, vx1, vy1);
+                break;
+            case "polygon":
+                fillPolygon(t);
+                break;
+            case "square":
+                expect(t, 4);
+                strokeShape(ShapeDrawer.createSquare(integer(t[1]), integer(t[2]), integer(t[3])));
+                break;
+            case "hexagon":
+                expect(t, 4);
+                strokeShape(ShapeDrawer.createHexagon(integer(t[1]), integer(t[2]), integer(t[3])));
+                break;
+            case "star":
+                expect(t, 4);
+                strokeShape(ShapeDrawer.createStar(integer(t[1]), integer(t[2]), integer(t[3])));
+                break;
+            case "translate":
+                expect(t, 3);
+                concat(new double[][]{{1, 0, number(t[1])}, {0, 1, number(t[2])}, {0, 0, 1}});
+                break;
+            case "rotate": {
+                expectEither(t, 2, 4);
+                double angle = Math.toRadians(number(t[1]));
+                double cos = Math.cos(angle), sin = Math.sin(angle);
+                double cx = t.length == 4 ? number(t[2]) : 0, cy = t.length == 4 ? number(t[3]) : 0;
+                concat(new double[][]{
+                    {cos, -sin, cx * (1 - cos) + cy * sin},
+                    {sin, cos, cy * (1 - cos) - cx * sin},
+                    {0, 0, 1}
+                });
+                break;
+            }
+            case "scale": {
+                if (t.length != 2 && t.length != 3 && t.length != 5) {
+                    throw new IllegalArgumentException("scale需要1、2或4个参数");
+                }
+                double sx = number(t[1]);
+                double sy = t.length >= 3 ? number(t[2]) : sx;
+                double cx = t.length == 5 ? number(t[3]) : 0, cy = t.length == 5 ? number(t[4]) : 0;
+                concat(new double[][]{{sx, 0, cx * (1 - sx)}, {0, sy, cy * (1 - sy)}, {0, 0, 1}});
+                break;
+            }
+            case "shear":
+                expect(t, 3);
+                concat(new double[][]{{1, number(t[1]), 0}, {number(t[2]), 1, 0}, {0, 0, 1}});
+                break;
+            case "identity":
+                expect(t, 1);
+                matrix = identity();
+                break;
+            default:
+                throw new IllegalArgumentException("未知命令 " + t[0]);
+        }
+    }
+
+    // 顶点经当前变换后取整，首尾闭合后交给扫描线填充；非零规则只有边表填充支持
+    private void fillPolygon(String[] t) {
+        if (t.length < 7 || t.length % 2 == 0) {
+            throw new IllegalArgumentException("polygon至少需要3个顶点的坐标");
+        }
+        points.clear();
+        for (int i = 1; i < t.length; i += 2) {
+            double x = number(t[i]), y = number(t[i + 1]);
+            points.add(new Point(coordinate(matrix[0][0] * x + matrix[0][1] * y + matrix[0][2]),
+                                 coordinate(matrix[1][0] * x + matrix[1][1] * y + matrix[1][2])));
+        }
+        points.add(points.get(0));
+        if (antialias) {
+            coverageFill.fill(points, raster, windingRule);
+        } else if (windingRule == Path2D.WIND_NON_ZERO) {
+            EdgeFill.edgeFill(points, raster, 0, height - 1, windingRule);
+        } else {
+            filler.setPolygon(points).fill(raster, 0, height - 1);
+        }
+    }
+
+    // 变换后的顶点坐标取整，超出±MAX_COORDINATE时拒绝整条命令，不截断成错误的形状
+    private static int coordinate(double v) {
+        if (!(Math.abs(v) <= MAX_COORDINATE)) {
+            throw new IllegalArgumentException("polygon的顶点变换后超出范围: " + v);
+        }
+        return (int) Math.round(v);
+    }
+
+    private void updateStroker() {
+        stroker = lineWidth == 1 ? null : new StrokeRasterizer(lineWidth, lineJoin).clipRows(0, height - 1);
+    }
+
+    // 变换后的轮廓逐段用Bresenham直线描出，设置了线宽时整体交给描边器
+    private void strokeShape(Shape shape) {
+        if (stroker != null) {
+            stroker.stroke(ShapeDrawer.transformShape(shape, matrix), raster);
+            return;
+        }
+        int vx1 = width - 1, vy1 = height - 1;
+        double[] coords = new double[6];
+        int startX = 0, startY = 0, lastX = 0, lastY = 0;
+        for (PathIterator it = ShapeDrawer.transformShape(shape, matrix).getPathIterator(null);
+             !it.isDone(); it.next()) {
+            int type = it.currentSegment(coords);
+            int x = (int) Math.round(coords[0]), y = (int) Math.round(coords[1]);
+            switch (type) {
+                case PathIterator.SEG_MOVETO:
+                    startX = lastX = x;
+                    startY = lastY = y;
+                    break;
+                case PathIterator.SEG_LINETO:
+                    BresenhamLine.drawClippedLine(raster, lastX, lastY, x, y, 0, 0, vx1, vy1);
+                    lastX = x;
+                    lastY = y;
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    BresenhamLine.drawClippedLine(raster, lastX, lastY, startX, startY, 0, 0, vx1, vy1);
+                    lastX = startX;
+                    lastY = startY;
+                    break;
+            }
+        }
+    }
+
+    // 新变换叠加在当前变换之后：M = t · M
+    private void concat(double[][] t) {
+        double[][] result = new double[3][3];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                for (int k = 0; k < 3; k++) {
+                    result[i][j] += t[i][k] * matrix[k][j];
+                }
+            }
+        }
+        matrix = result;
+    }
+
+    private static double[][] identity() {
+        return new double[][]{{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
+    }
+
+    private static void expect(String[] t, int n) {
+        if (t.length != n) {
+            throw new IllegalArgumentException(t[0] + "需要" + (n - 1) + "个参数");
+        }
+    }
+
+    private static void expectEither(String[] t, int n, int m) {
+        if (t.length != n && t.length != m) {
+            throw new IllegalArgumentException(t[0] + "需要" + (n - 1) + "或" + (m - 1) + "个参数");
+        }
+    }
+
+    private static int join(String s) {
+        switch (s) {
+            case "miter":
+                return StrokeRasterizer.JOIN_MITER;
+            case "bevel":
+                return StrokeRasterizer.JOIN_BEVEL;
+            case "round":
+                return StrokeRasterizer.JOIN_ROUND;
+            default:
+                throw new IllegalArgumentException("未知的连接方式 " + s);
+        }
+    }
+
+    // 数字格式错误时抛出的NumberFormatException也是IllegalArgumentException
+    private static int integer(String s) {
+        return Integer.parseInt(s);
+    }
+
+    private static int positive(String s) {
+        int v = Integer.parseInt(s);
+        if (v <= 0) {
+            throw new IllegalArgumentException("尺寸必须为正数: " + s);
+        }
+        if (v > MAX_SIZE) {
+            throw new IllegalArgumentException("尺寸不能超过" + MAX_SIZE + ": " + s);
+        }
+        return v;
+    }
+
+    private static double number(String s) {
+        return Double.parseDouble(s);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || args.length % 2 != 0) {
+            System.err.println("用法: java -Djava.awt.headless=true SceneRenderer 场景文件 输出.png [场景文件 输出.png ...]");
+            System.exit(2);
+        }
+        SceneRenderer renderer = new SceneRenderer();
+        for (int i = 0; i < args.length; i += 2) {
+            if (args[i].endsWith(".scn")) {
+                renderer.renderBinary(Paths.get(args[i]), new File(args[i + 1]));
+                continue;
+            }
+            // 关闭Reader时不能连带关闭System.in
+            InputStream source = args[i].equals("-") ? new FilterInputStream(System.in) {
+                @Override
+                public void close() {
+                }
+            } : new FileInputStream(args[i]);
+            try (Reader in = new InputStreamReader(source, StandardCharsets.UTF_8)) {
+                renderer.render(in, new File(args[i + 1]));
+            } catch (IllegalArgumentException e) {
+                System.err.println(args[i] + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -4,8 +4,9 @@ import java.awt.geom.Path2D;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
-import java.util.ArrayList;
-import java.util.List;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.*;
 
 public class ShapeDrawer extends JFrame {
@@ -16,11 +17,12 @@ public class ShapeDrawer extends JFrame {
     private JTextField sizeInput;
     private int inputSize = 100;
     private DrawingPanel drawingPanel;
-    private List<Shape> savedShapes = new ArrayList<>();
+    private ShapeStore savedShapes = new ShapeStore(); // 已保存的图形，按编号访问
+    private ShapeGrid shapeIndex = new ShapeGrid(64); // 已保存图形的空间索引，与savedShapes使用相同的编号
     private boolean isTransforming = false;
     private int transformType = -1; // 0-平移, 1-旋转, 2-缩放, 3-错切
     private Point transformStart;
-    private Shape selectedShape;
+    private int selectedShape = -1; // 选中图形的编号，-1表示未选中
     private boolean isDrawingMode = true; // 添加绘图模式标志
     private Point translationStart;
     private Point translationEnd;
@@ -30,6 +32,9 @@ public class ShapeDrawer extends JFrame {
     private boolean waitingForEndPoint = false; // 是否等待设置终点
     private double lastAngle; // 用于存储上一次的旋转角度
     private boolean isShearX = true; // 用于标识是水平错切还是垂直错切
+    private JTextField widthInput;
+    private JComboBox<String> joinBox;
+    private StrokeRasterizer stroker; // 线宽大于1时的描边器，为null时按1像素画轮廓
 
     public ShapeDrawer() {
         setTitle("图形绘制器");
@@ -46,6 +51,9 @@ public class ShapeDrawer extends JFrame {
         JLabel sizeLabel = new JLabel("尺寸:");
         sizeInput = new JTextField("100", 5);
         JButton drawBtn = new JButton("绘制");
+        JLabel widthLabel = new JLabel("线宽:");
+        widthInput = new JTextField("1", 3);
+        joinBox = new JComboBox<>(new String[]{"尖角", "斜角", "圆角"});
         
         JButton saveBtn = new JButton("保存");
         JButton clearBtn = new JButton("清除");
@@ -53,6 +61,8 @@ public class ShapeDrawer extends JFrame {
         JButton rotateBtn = new JButton("旋转");
         JButton scaleBtn = new JButton("缩放");
         JButton shearBtn = new JButton("错切");
+        JButton exportBtn = new JButton("导出");
+        JButton importBtn = new JButton("导入");
         
         toolBar.add(squareBtn);
         toolBar.add(hexagonBtn);
@@ -60,17 +70,22 @@ public class ShapeDrawer extends JFrame {
         toolBar.add(sizeLabel);
         toolBar.add(sizeInput);
         toolBar.add(drawBtn);
+        toolBar.add(widthLabel);
+        toolBar.add(widthInput);
+        toolBar.add(joinBox);
         toolBar.add(saveBtn);
         toolBar.add(clearBtn);
         toolBar.add(translateBtn);
         toolBar.add(rotateBtn);
         toolBar.add(scaleBtn);
         toolBar.add(shearBtn);
+        toolBar.add(exportBtn);
+        toolBar.add(importBtn);
         
         // 添加按钮事件监听
-        squareBtn.addActionListener(e -> shapeType = 0);
-        hexagonBtn.addActionListener(e -> shapeType = 1);
-        starBtn.addActionListener(e -> shapeType = 2);
+        squareBtn.addActionListener(e -> selectShape(0));
+        hexagonBtn.addActionListener(e -> selectShape(1));
+        starBtn.addActionListener(e -> selectShape(2));
 
         // 添加绘制按钮事件监听
         drawBtn.addActionListener(e -> {
@@ -84,9 +99,15 @@ public class ShapeDrawer extends JFrame {
             }
         });
 
+        // 线宽输入框回车或切换连接方式后重建描边器，所有图形按新线宽重画
+        widthInput.addActionListener(e -> updateStroke());
+        joinBox.addActionListener(e -> updateStroke());
+
         saveBtn.addActionListener(e -> {
             if (currentShape != null) {
-                savedShapes.add(currentShape);
+                int id = savedShapes.add(currentShape);
+                shapeIndex.insert(id, savedShapes.bounds(id));
+                drawingPanel.invalidateBackground();
                 currentShape = null;
                 startPoint = null;
                 endPoint = null;
@@ -95,7 +116,11 @@ public class ShapeDrawer extends JFrame {
         });
 
         clearBtn.addActionListener(e -> {
+            drawingPanel.flushPendingTransform();
             savedShapes.clear();
+            shapeIndex.clear();
+            selectedShape = -1;
+            drawingPanel.invalidateBackground();
             currentShape = null;
             startPoint = null;
             endPoint = null;
@@ -104,10 +129,47 @@ public class ShapeDrawer extends JFrame {
             drawingPanel.repaint();
         });
 
-        translateBtn.addActionListener(e -> transformType = 0);
-        rotateBtn.addActionListener(e -> transformType = 1);
-        scaleBtn.addActionListener(e -> transformType = 2);
-        shearBtn.addActionListener(e -> transformType = 3);
+        translateBtn.addActionListener(e -> selectTransform(0));
+        rotateBtn.addActionListener(e -> selectTransform(1));
+        scaleBtn.addActionListener(e -> selectTransform(2));
+        shearBtn.addActionListener(e -> selectTransform(3));
+
+        // 导出/导入二进制场景文件（格式见SceneFile）
+        exportBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                drawingPanel.flushPendingTransform();
+                try {
+                    SceneFile.write(savedShapes, drawingPanel.getWidth(), drawingPanel.getHeight(),
+                                    chooser.getSelectedFile().toPath());
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(this, "导出失败：" + ex.getMessage());
+                }
+            }
+        });
+
+        importBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                // 先读入新的ShapeStore，成功后才替换当前场景，文件损坏时原有图形保持不变
+                ShapeStore loaded = new ShapeStore();
+                try {
+                    SceneFile.open(chooser.getSelectedFile().toPath()).loadInto(loaded);
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(this, "导入失败：" + ex.getMessage());
+                    return;
+                }
+                drawingPanel.flushPendingTransform();
+                savedShapes = loaded;
+                shapeIndex.clear();
+                selectedShape = -1;
+                for (int id = 0; id < savedShapes.size(); id++) {
+                    shapeIndex.insert(id, savedShapes.bounds(id));
+                }
+                drawingPanel.invalidateBackground();
+                drawingPanel.repaint();
+            }
+        });
 
         // 创建绘图面板
         drawingPanel = new DrawingPanel();
@@ -116,11 +178,65 @@ public class ShapeDrawer extends JFrame {
         add(drawingPanel, BorderLayout.CENTER);
     }
 
+    // 选择图形工具时回到绘图模式，选择变换工具时离开绘图模式，拖动才会作用到选中图形上
+    private void selectShape(int type) {
+        drawingPanel.flushPendingTransform();
+        shapeType = type;
+        transformType = -1;
+        isDrawingMode = true;
+        drawingPanel.repaint();
+    }
+
+    private void selectTransform(int type) {
+        drawingPanel.flushPendingTransform();
+        transformType = type;
+        isDrawingMode = false;
+        drawingPanel.repaint();
+    }
+
+    private void updateStroke() {
+        double width;
+        try {
+            width = Double.parseDouble(widthInput.getText());
+        } catch (NumberFormatException ex) {
+            width = -1;
+        }
+        if (!(width > 0) || width > 1000) {
+            JOptionPane.showMessageDialog(this, "请输入有效的线宽！");
+            return;
+        }
+        // 下拉框的顺序与StrokeRasterizer的连接方式常量一致
+        stroker = width == 1 ? null : new StrokeRasterizer(width, joinBox.getSelectedIndex());
+        drawingPanel.invalidateBackground();
+        drawingPanel.repaint();
+    }
+
+    // 轮廓向外绘制的最大距离，1像素轮廓留出抗锯齿的边缘
+    private int strokeMargin() {
+        return stroker == null ? 2 : (int) Math.ceil(stroker.extent()) + 2;
+    }
+
     class DrawingPanel extends JPanel {
+        private Rectangle dirty; // 本次事件中发生变化的区域，处理结束时一次性重绘
+        // 背景层：除选中图形外的所有已保存图形，只在图形增删或选中图形改变时重新绘制
+        // 选中图形会被变换，每帧单独绘制在背景层之上
+        private RasterPixelSink background; // 1像素轮廓用吴小林反走样直线绘制，较宽的轮廓用StrokeRasterizer
+        private boolean backgroundValid;
+        private int backgroundExcludes = -1; // 背景层中未绘制的图形编号
+
+        // 拖动合并：一帧内的多个拖动事件先合成为一个矩阵，由定时器每帧应用一次
+        private final Timer frameTimer = new Timer(16, e -> flushPendingTransform());
+        private double[][] pendingMatrix; // 尚未应用的合成变换，null表示没有
+        private int pendingEvents;        // pendingMatrix中合并的事件数
+        private long appliedTransforms;   // 实际应用到图形上的变换次数
+        private long droppedEvents;       // 被合并掉、没有单独应用的拖动事件数
+
         public DrawingPanel() {
             addMouseListener(new MouseAdapter() {
                 @Override
                 public void mousePressed(MouseEvent e) {
+                    flushPendingTransform();
+                    markOverlayDirty();
                     if (transformType != -1) {  // 变换模式
                         if (e.getButton() == MouseEvent.BUTTON3) { // 鼠标右键
                             switch (transformType) {
@@ -144,7 +260,7 @@ public class ShapeDrawer extends JFrame {
                                         isShearX = true; // 默认先进行水平错切
                                     } else {
                                         Point endPoint = e.getPoint();
-                                        if (selectedShape != null) {
+                                        if (selectedShape >= 0) {
                                             double shearFactor;
                                             if (isShearX) {
                                                 shearFactor = (endPoint.x - fixedPoint.x) / 100.0;
@@ -173,13 +289,20 @@ public class ShapeDrawer extends JFrame {
                                     break;
                             }
                         } else if (e.getButton() == MouseEvent.BUTTON1) { // 鼠标左键
+                            // 拖动从这里开始：错切按相对上一位置的位移计算，旋转按相对不动点的角度变化计算
+                            transformStart = e.getPoint();
+                            isTransforming = true;
+                            if (fixedPoint != null) {
+                                lastAngle = Math.atan2(e.getY() - fixedPoint.y, e.getX() - fixedPoint.x);
+                            }
                             // 选择要变换的图形
+                            // 只检查网格中鼠标所在单元的候选图形，多个命中时取最早保存的
                             Point2D p = e.getPoint();
-                            selectedShape = null;
-                            for (Shape shape : savedShapes) {
-                                if (shape.contains(p)) {
-                                    selectedShape = shape;
-                                    break;
+                            selectedShape = -1;
+                            for (int id : shapeIndex.query(p.getX(), p.getY())) {
+                                if ((selectedShape < 0 || id < selectedShape)
+                                        && savedShapes.contains(id, p.getX(), p.getY())) {
+                                    selectedShape = id;
                                 }
                             }
                         }
@@ -187,22 +310,27 @@ public class ShapeDrawer extends JFrame {
                         startPoint = e.getPoint();
                         endPoint = e.getPoint();
                     }
-                    repaint();
+                    markOverlayDirty();
+                    repaintDirty();
                 }
 
                 @Override
                 public void mouseReleased(MouseEvent e) {
+                    markOverlayDirty();
+                    flushPendingTransform(); // 松开时立即应用最后一帧内积攒的变换
                     if (transformType == 1 || transformType == 3) { // 旋转或错切
                         isTransforming = false;
                     }
-                    repaint();
+                    markOverlayDirty();
+                    repaintDirty();
                 }
             });
 
             addMouseMotionListener(new MouseMotionAdapter() {
                 @Override
                 public void mouseDragged(MouseEvent e) {
-                    if (!isDrawingMode && selectedShape != null) {
+                    markOverlayDirty();
+                    if (!isDrawingMode && selectedShape >= 0) {
                         Point current = e.getPoint();
                         
                         switch (transformType) {
@@ -221,7 +349,7 @@ public class ShapeDrawer extends JFrame {
                                          fixedPoint.y * (1 - Math.cos(deltaAngle)) - fixedPoint.x * Math.sin(deltaAngle)},
                                         {0, 0, 1}
                                     };
-                                    transform(selectedShape, matrix);
+                                    queueTransform(matrix);
                                 }
                                 break;
                             case 3: // 错切
@@ -234,15 +362,15 @@ public class ShapeDrawer extends JFrame {
                                     {shearY, 1, 0},
                                     {0, 0, 1}
                                 };
-                                transform(selectedShape, matrix);
+                                queueTransform(matrix);
                                 transformStart = current;
                                 break;
                         }
-                        repaint();
                     } else if (isDrawingMode) {
                         endPoint = e.getPoint();
-                        repaint();
                     }
+                    markOverlayDirty();
+                    repaintDirty();
                 }
             });
         }
@@ -253,56 +381,27 @@ public class ShapeDrawer extends JFrame {
             Graphics2D g2d = (Graphics2D) g;
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-            // 绘制已保存的图形
+            // 绘制已保存的图形：静态图形来自缓存的背景层，选中图形单独绘制
+            g2d.drawImage(backgroundLayer(), 0, 0, null);
+            Rectangle clip = g.getClipBounds();
             g2d.setColor(Color.RED);
-            for (Shape shape : savedShapes) {
-                g2d.draw(shape);
+            if (selectedShape >= 0 && (clip == null || touches(savedShapes.bounds(selectedShape), clip))) {
+                drawOutline(g2d, savedShapes.shape(selectedShape));
             }
 
             // 绘制当前图形
             g2d.setColor(Color.BLACK);
-            if (startPoint != null && endPoint != null && isDrawingMode) {
-                int size;
-                if (endPoint.x == startPoint.x + inputSize && 
-                    endPoint.y == startPoint.y + inputSize) {
-                    size = inputSize;
-                } else {
-                    size = (int) Math.sqrt(Math.pow(endPoint.x - startPoint.x, 2) + 
-                                         Math.pow(endPoint.y - startPoint.y, 2));
-                }
-                
-                switch (shapeType) {
-                    case 0: // 正方形
-                        currentShape = createSquare(startPoint.x, startPoint.y, size);
-                        break;
-                    case 1: // 正六边形
-                        currentShape = createHexagon(startPoint.x, startPoint.y, size);
-                        break;
-                    case 2: // 五角星
-                        currentShape = createStar(startPoint.x, startPoint.y, size);
-                        break;
-                }
-                g2d.draw(currentShape);
+            Shape shape = buildCurrentShape();
+            if (shape != null) {
+                currentShape = shape;
+                drawOutline(g2d, currentShape);
             }
 
             // 绘制变换参考点和提示信息
             if (!isDrawingMode && fixedPoint != null) {
                 g2d.setColor(Color.BLUE);
                 g2d.fillOval(fixedPoint.x - 5, fixedPoint.y - 5, 10, 10);
-                
-                String message = "";
-                switch (transformType) {
-                    case 1: // 旋转
-                        message = "拖动鼠标进行旋转";
-                        break;
-                    case 2: // 缩放
-                        message = "点击右键确定缩放终点";
-                        break;
-                    case 3: // 错切
-                        message = isShearX ? "点击右键确定水平错切终点" : "点击右键确定垂直错切终点";
-                        break;
-                }
-                g2d.drawString(message, fixedPoint.x + 10, fixedPoint.y);
+                g2d.drawString(hintMessage(), fixedPoint.x + 10, fixedPoint.y);
             }
 
             // 绘制平移参考点
@@ -315,83 +414,185 @@ public class ShapeDrawer extends JFrame {
             }
         }
 
-        private Shape createSquare(int x, int y, int size) {
-            return new Rectangle2D.Double(x, y, size, size);
+        // 拖动产生的变换先合成到pendingMatrix中（后到的矩阵左乘），等下一帧再应用
+        private void queueTransform(double[][] matrix) {
+            pendingMatrix = pendingMatrix == null ? matrix : multiply(matrix, pendingMatrix);
+            pendingEvents++;
+            if (!frameTimer.isRunning()) {
+                frameTimer.start();
+            }
         }
 
-        private Shape createHexagon(int x, int y, int size) {
-            Path2D path = new Path2D.Double();
-            for (int i = 0; i < 6; i++) {
-                double angle = i * Math.PI / 3;
-                double xPoint = x + size * Math.cos(angle);
-                double yPoint = y + size * Math.sin(angle);
-                if (i == 0) {
-                    path.moveTo(xPoint, yPoint);
-                } else {
-                    path.lineTo(xPoint, yPoint);
-                }
+        // 把积攒的变换一次应用到选中图形并重绘；没有待应用的变换时停止定时器
+        void flushPendingTransform() {
+            if (pendingMatrix == null) {
+                frameTimer.stop();
+                return;
             }
-            path.closePath();
-            return path;
+            markOverlayDirty(); // 提示文字中的计数随之改变
+            transform(selectedShape, pendingMatrix);
+            appliedTransforms++;
+            droppedEvents += pendingEvents - 1;
+            pendingMatrix = null;
+            pendingEvents = 0;
+            markOverlayDirty();
+            repaintDirty();
         }
 
-        private Shape createStar(int x, int y, int size) {
-            Path2D path = new Path2D.Double();
-            double startAngle = -Math.PI / 2;
-            for (int i = 0; i < 10; i++) {
-                double angle = startAngle + i * Math.PI / 5;
-                int radius = (i % 2 == 0) ? size : size / 2;
-                double xPoint = x + radius * Math.cos(angle);
-                double yPoint = y + radius * Math.sin(angle);
-                if (i == 0) {
-                    path.moveTo(xPoint, yPoint);
-                } else {
-                    path.lineTo(xPoint, yPoint);
-                }
-            }
-            path.closePath();
-            return path;
+        void invalidateBackground() {
+            backgroundValid = false;
         }
 
-        // 添加矩阵变换方法
-        private void transform(Shape shape, double[][] matrix) {
-            int index = savedShapes.indexOf(shape);
-            if (index >= 0) {
-                Path2D newPath = new Path2D.Double();
-                PathIterator it = shape.getPathIterator(null);
-                double[] coords = new double[6];
-                
-                while (!it.isDone()) {
-                    int type = it.currentSegment(coords);
-                    double[] point = new double[]{coords[0], coords[1], 1};
-                    double[] newPoint = matrixMultiply(matrix, point);
-                    
-                    switch (type) {
-                        case PathIterator.SEG_MOVETO:
-                            newPath.moveTo(newPoint[0], newPoint[1]);
-                            break;
-                        case PathIterator.SEG_LINETO:
-                            newPath.lineTo(newPoint[0], newPoint[1]);
-                            break;
-                        case PathIterator.SEG_CLOSE:
-                            newPath.closePath();
-                            break;
+        // 按需重建背景层：面板尺寸改变、图形增删或选中图形改变后才重新绘制
+        private BufferedImage backgroundLayer() {
+            RasterPixelSink resized = RasterPixelSink.resize(background, getWidth(), getHeight());
+            if (resized != background) {
+                background = resized;
+                backgroundValid = false;
+            }
+            if (!backgroundValid || backgroundExcludes != selectedShape) {
+                // 以面板的不透明底色打底，反走样混合走不透明目标的快速路径
+                background.setColor(getBackground().getRGB() | 0xFF000000);
+                for (int y = 0; y < background.getHeight(); y++) {
+                    background.span(0, background.getWidth() - 1, y);
+                }
+                // 图形交给分块渲染器，各图块在ForkJoinPool中并行绘制；跳过完全移出面板的图形
+                TileRenderer tiles = new TileRenderer(background.getWidth(), background.getHeight());
+                tiles.setColor(Color.RED);
+                Rectangle area = new Rectangle(0, 0, background.getWidth(), background.getHeight());
+                for (int id = 0; id < savedShapes.size(); id++) {
+                    if (id != selectedShape && touches(savedShapes.bounds(id), area)) {
+                        if (stroker != null) {
+                            tiles.stroke(savedShapes.shape(id), stroker);
+                        } else {
+                            tiles.antialiasedPath(savedShapes.shape(id));
+                        }
                     }
-                    it.next();
                 }
-                savedShapes.set(index, newPath);
+                tiles.render(background, ForkJoinPool.commonPool());
+                backgroundValid = true;
+                backgroundExcludes = selectedShape;
             }
+            return background.getImage();
         }
 
-        private double[] matrixMultiply(double[][] matrix, double[] point) {
-            double[] result = new double[3];
-            for (int i = 0; i < 3; i++) {
-                result[i] = 0;
-                for (int j = 0; j < 3; j++) {
-                    result[i] += matrix[i][j] * point[j];
-                }
+        // 有描边器时把轮廓转换成整像素的水平跨度逐行画出，不经过Java2D的描边器
+        private void drawOutline(Graphics2D g2d, Shape shape) {
+            if (stroker == null) {
+                g2d.draw(shape);
+                return;
+            }
+            // 跨度已经对齐到像素，反走样会把每一行涂到相邻的行上
+            Object hint = g2d.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+            stroker.clipRows(0, getHeight() - 1).stroke(shape, new GraphicsPixelSink(g2d));
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, hint);
+        }
+
+        // 绘图模式下由起点和终点确定的当前图形，没有时返回null
+        private Shape buildCurrentShape() {
+            if (startPoint == null || endPoint == null || !isDrawingMode) {
+                return null;
+            }
+            int size;
+            if (endPoint.x == startPoint.x + inputSize && 
+                endPoint.y == startPoint.y + inputSize) {
+                size = inputSize;
+            } else {
+                size = (int) Math.sqrt(Math.pow(endPoint.x - startPoint.x, 2) + 
+                                     Math.pow(endPoint.y - startPoint.y, 2));
+            }
+            
+            switch (shapeType) {
+                case 0: // 正方形
+                    return createSquare(startPoint.x, startPoint.y, size);
+                case 1: // 正六边形
+                    return createHexagon(startPoint.x, startPoint.y, size);
+                case 2: // 五角星
+                    return createStar(startPoint.x, startPoint.y, size);
+            }
+            return null;
+        }
+
+        private String hintMessage() {
+            switch (transformType) {
+                case 1: // 旋转
+                    return "拖动鼠标进行旋转" + coalescingStats();
+                case 2: // 缩放
+                    return "点击右键确定缩放终点";
+                case 3: // 错切
+                    return (isShearX ? "点击右键确定水平错切终点" : "点击右键确定垂直错切终点") + coalescingStats();
+            }
+            return "";
+        }
+
+        // 拖动合并的效果：实际应用的变换次数和被合并掉的拖动事件数，还没有拖动过时不显示
+        private String coalescingStats() {
+            if (appliedTransforms == 0) return "";
+            return "（已应用" + appliedTransforms + "次变换，合并" + droppedEvents + "个拖动事件）";
+        }
+
+        // 记录当前图形、参考点和提示文字所占的区域，绘制条件与paintComponent一致
+        // 事件处理前后各调用一次，旧位置和新位置都会被重绘
+        private void markOverlayDirty() {
+            Shape shape = buildCurrentShape();
+            if (shape != null) {
+                markDirty(shape.getBounds2D());
+            }
+            if (!isDrawingMode && fixedPoint != null) {
+                markMarkerDirty(fixedPoint, hintMessage());
+            }
+            if (transformType == 0 && translationStart != null) {
+                markMarkerDirty(translationStart, waitingForSecondClick ? "请点击右键选择终点" : "");
+            }
+        }
+
+        // 参考点圆标记及其右侧的文字
+        private void markMarkerDirty(Point p, String message) {
+            markDirty(new Rectangle(p.x - 5, p.y - 5, 10, 10));
+            if (!message.isEmpty()) {
+                FontMetrics fm = getFontMetrics(getFont());
+                markDirty(new Rectangle(p.x + 10, p.y - fm.getAscent(),
+                                        fm.stringWidth(message), fm.getAscent() + fm.getDescent()));
+            }
+        }
+
+        // 向外扩展，包含描边宽度和抗锯齿的边缘
+        private void markDirty(Rectangle2D area) {
+            Rectangle r = area.getBounds();
+            r.grow(strokeMargin(), strokeMargin());
+            if (dirty == null) {
+                dirty = r;
+            } else {
+                dirty.add(r);
+            }
+        }
+
+        private void repaintDirty() {
+            if (dirty != null) {
+                repaint(dirty);
+                dirty = null;
+            }
+        }
+
+        // 外接矩形（含描边）与裁剪区域是否相交；退化成线段的图形宽或高为0，不能直接用intersects
+        private boolean touches(Rectangle2D bounds, Rectangle clip) {
+            int m = strokeMargin();
+            return bounds.getMaxX() + m >= clip.x && bounds.getMinX() - m <= clip.x + clip.width
+                    && bounds.getMaxY() + m >= clip.y && bounds.getMinY() - m <= clip.y + clip.height;
+        }
+
+        // 添加矩阵变换方法：只把矩阵合成进图形的累积变换，路径在绘制时才生成
+        // 变换前后的外接矩形都记入待重绘区域
+        private void transform(int id, double[][] matrix) {
+            if (id >= 0 && id < savedShapes.size()) {
+                Rectangle2D oldBounds = savedShapes.bounds(id);
+                savedShapes.apply(id, matrix);
+                Rectangle2D newBounds = savedShapes.bounds(id);
+                shapeIndex.update(id, oldBounds, newBounds);
+                markDirty(oldBounds);
+                markDirty(newBounds);
             }
-            return new double[]{result[0], result[1]};
         }
 
         // 添加处理平移点击的方法
@@ -403,7 +604,7 @@ public class ShapeDrawer extends JFrame {
                 translationEnd = point;
                 waitingForSecondClick = false;
                 
-                if (selectedShape != null) {
+                if (selectedShape >= 0) {
                     double dx = translationEnd.x - translationStart.x;
                     double dy = translationEnd.y - translationStart.y;
                     
@@ -428,7 +629,7 @@ public class ShapeDrawer extends JFrame {
                 double baseDistance = 100.0; // 基准距离
                 double scale = distance / baseDistance;
                 
-                if (selectedShape != null) {
+                if (selectedShape >= 0) {
                     double[][] matrix = new double[][]{
                         {scale, 0, fixedPoint.x * (1 - scale)},
                         {0, scale, fixedPoint.y * (1 - scale)},
@@ -445,6 +646,88 @@ public class ShapeDrawer extends JFrame {
         }
     }
 
+    // 以(x, y)为基准、边长或半径为size的三种图形
+    static Shape createSquare(int x, int y, int size) {
+        return new Rectangle2D.Double(x, y, size, size);
+    }
+
+    static Shape createHexagon(int x, int y, int size) {
+        Path2D path = new Path2D.Double();
+        for (int i = 0; i < 6; i++) {
+            double angle = i * Math.PI / 3;
+            double xPoint = x + size * Math.cos(angle);
+            double yPoint = y + size * Math.sin(angle);
+            if (i == 0) {
+                path.moveTo(xPoint, yPoint);
+            } else {
+                path.lineTo(xPoint, yPoint);
+            }
+        }
+        path.closePath();
+        return path;
+    }
+
+    static Shape createStar(int x, int y, int size) {
+        Path2D path = new Path2D.Double();
+        double startAngle = -Math.PI / 2;
+        for (int i = 0; i < 10; i++) {
+            double angle = startAngle + i * Math.PI / 5;
+            int radius = (i % 2 == 0) ? size : size / 2;
+            double xPoint = x + radius * Math.cos(angle);
+            double yPoint = y + radius * Math.sin(angle);
+            if (i == 0) {
+                path.moveTo(xPoint, yPoint);
+            } else {
+                path.lineTo(xPoint, yPoint);
+            }
+        }
+        path.closePath();
+        return path;
+    }
+
+    // 用3x3齐次矩阵变换图形的每个顶点，得到新的路径
+    // 矩阵第三行为 0 0 1 的仿射变换，直接按两行计算，不再逐点做完整的矩阵乘法
+    static Path2D transformShape(Shape shape, double[][] matrix) {
+        Path2D newPath = new Path2D.Double();
+        PathIterator it = shape.getPathIterator(null);
+        double[] coords = new double[6];
+        double a = matrix[0][0], b = matrix[0][1], c = matrix[0][2];
+        double d = matrix[1][0], e = matrix[1][1], f = matrix[1][2];
+        
+        while (!it.isDone()) {
+            int type = it.currentSegment(coords);
+            double x = a * coords[0] + b * coords[1] + c;
+            double y = d * coords[0] + e * coords[1] + f;
+            
+            switch (type) {
+                case PathIterator.SEG_MOVETO:
+                    newPath.moveTo(x, y);
+                    break;
+                case PathIterator.SEG_LINETO:
+                    newPath.lineTo(x, y);
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    newPath.closePath();
+                    break;
+            }
+            it.next();
+        }
+        return newPath;
+    }
+
+    // 3x3矩阵乘积 a · b
+    private static double[][] multiply(double[][] a, double[][] b) {
+        double[][] result = new double[3][3];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                for (int k = 0; k < 3; k++) {
+                    result[i][j] += a[i][k] * b[k][j];
+                }
+            }
+        }
+        return result;
+    }
+
     public static void main(String[] args) {
         // 确保在 EDT (Event Dispatch Thread) 中运行
         SwingUtilities.invokeLater(() -> {
@@ -0,0 +1,169 @@
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+// 均匀网格空间索引：按外接矩形把图形编号登记到覆盖的网格单元中，
+// 点选时只需检查鼠标所在单元里的少数候选图形
+class ShapeGrid {
+    private final double cellSize;
+    // 单元坐标 -> 图形编号列表(下标0存放数量)，开放寻址散列表，键直接存long不装箱；
+    // lists[i]为null表示空槽，删除时把后续同簇的键前移，不留墓碑
+    private long[] keys = new long[16];
+    private int[][] lists = new int[16][];
+    private int used;
+    // 覆盖单元过多的大图形不登记到网格，每次查询都作为候选
+    private static final int MAX_CELLS_PER_SHAPE = 1024;
+    private int[] large = new int[1];
+
+    ShapeGrid(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    void insert(int id, Rectangle2D bounds) {
+        int cx0 = cell(bounds.getMinX()), cx1 = cell(bounds.getMaxX());
+        int cy0 = cell(bounds.getMinY()), cy1 = cell(bounds.getMaxY());
+        if (cellCount(cx0, cy0, cx1, cy1) > MAX_CELLS_PER_SHAPE) {
+            large = add(large, id);
+            return;
+        }
+        // 单元坐标可能取到int两端，循环变量用long以免cy++回绕
+        for (long cy = cy0; cy <= cy1; cy++) {
+            for (long cx = cx0; cx <= cx1; cx++) {
+                long key = key((int) cx, (int) cy);
+                int slot = slot(key);
+                if (lists[slot] == null) {
+                    keys[slot] = key;
+                    used++;
+                }
+                lists[slot] = add(lists[slot], id);
+                if (used * 2 > keys.length) {
+                    grow();
+                }
+            }
+        }
+    }
+
+    // bounds须与插入时使用的外接矩形一致
+    void remove(int id, Rectangle2D bounds) {
+        int cx0 = cell(bounds.getMinX()), cx1 = cell(bounds.getMaxX());
+        int cy0 = cell(bounds.getMinY()), cy1 = cell(bounds.getMaxY());
+        if (cellCount(cx0, cy0, cx1, cy1) > MAX_CELLS_PER_SHAPE) {
+            removeFrom(large, id);
+            return;
+        }
+        for (long cy = cy0; cy <= cy1; cy++) {
+            for (long cx = cx0; cx <= cx1; cx++) {
+                int slot = slot(key((int) cx, (int) cy));
+                int[] ids = lists[slot];
+                if (ids == null) continue;
+                removeFrom(ids, id);
+                if (ids[0] == 0) {
+                    delete(slot);
+                }
+            }
+        }
+    }
+
+    void update(int id, Rectangle2D oldBounds, Rectangle2D newBounds) {
+        remove(id, oldBounds);
+        insert(id, newBounds);
+    }
+
+    void clear() {
+        Arrays.fill(lists, null);
+        used = 0;
+        large = new int[1];
+    }
+
+    // 返回外接矩形可能包含点(x, y)的图形编号，无序；没有候选时返回空数组
+    int[] query(double x, double y) {
+        int[] ids = lists[slot(key(cell(x), cell(y)))];
+        int n = ids == null ? 0 : ids[0];
+        int[] result = new int[n + large[0]];
+        if (n > 0) {
+            System.arraycopy(ids, 1, result, 0, n);
+        }
+        System.arraycopy(large, 1, result, n, large[0]);
+        return result;
+    }
+
+    // 列表下标0存放数量，容量不足时扩容
+    private static int[] add(int[] ids, int id) {
+        if (ids == null) {
+            ids = new int[5];
+        } else if (ids[0] + 1 == ids.length) {
+            int[] grown = new int[ids.length * 2];
+            System.arraycopy(ids, 0, grown, 0, ids.length);
+            ids = grown;
+        }
+        ids[++ids[0]] = id;
+        return ids;
+    }
+
+    private static void removeFrom(int[] ids, int id) {
+        for (int i = 1; i <= ids[0]; i++) {
+            if (ids[i] == id) {
+                ids[i] = ids[ids[0]--];
+                return;
+            }
+        }
+    }
+
+    // 外接矩形覆盖的单元数；单元坐标可取到int两端，先扩展为long再相减
+    private static long cellCount(int cx0, int cy0, int cx1, int cy1) {
+        return ((long) cx1 - cx0 + 1) * ((long) cy1 - cy0 + 1);
+    }
+
+    // 键所在的槽，或键不存在时应插入的空槽
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int i = home(key);
+        while (lists[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    // 清空槽i，并把后面同一簇中因冲突而越过i的键前移填补空位，保证查找不会提前遇到空槽
+    private void delete(int i) {
+        int mask = keys.length - 1;
+        lists[i] = null;
+        used--;
+        for (int j = (i + 1) & mask; lists[j] != null; j = (j + 1) & mask) {
+            int home = home(keys[j]);
+            // home不在(i, j]之间(按环形)时，键j可以移到i
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                keys[i] = keys[j];
+                lists[i] = lists[j];
+                lists[j] = null;
+                i = j;
+            }
+        }
+    }
+
+    // 键的首选槽：乘以黄金比例常数打散相邻单元，取高位
+    private int home(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & (keys.length - 1);
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[][] oldLists = lists;
+        keys = new long[oldKeys.length * 2];
+        lists = new int[oldKeys.length * 2][];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldLists[i] != null) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                lists[slot] = oldLists[i];
+            }
+        }
+    }
+
+    private int cell(double v) {
+        return (int) Math.floor(v / cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
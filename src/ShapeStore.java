@@ -0,0 +1,213 @@
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+// 图形场景存储：所有图形的顶点坐标连续存放在xs/ys数组中，每个图形用编号访问，
+// 编号在添加时分配，之后保持不变，按编号取图形为O(1)
+// 每个图形保留原始顶点和一个累积的仿射矩阵，变换只改矩阵，路径在需要时才生成并缓存
+class ShapeStore {
+    private double[] xs = new double[256];
+    private double[] ys = new double[256];
+    private int vertexCount;
+
+    private int[] offset = new int[16];   // 图形的第一个顶点在xs/ys中的位置
+    private int[] length = new int[16];   // 图形的顶点数
+    private double[] baseBounds = new double[16 * 4]; // 原始顶点的外接矩形 minX, minY, maxX, maxY
+    // 仿射矩阵的前两行 m00 m01 m02 m10 m11 m12，第三行恒为 0 0 1
+    private double[] matrices = new double[16 * 6];
+    private Shape[] cache = new Shape[16];
+    private int count;
+    // 生成路径和外接矩形时存放变换后坐标的缓冲区，重复使用
+    private double[] pathX = new double[16], pathY = new double[16];
+    private final double[] cornerX = new double[4], cornerY = new double[4];
+
+    int size() {
+        return count;
+    }
+
+    void clear() {
+        vertexCount = 0;
+        count = 0;
+        Arrays.fill(cache, null);
+    }
+
+    // 把图形的顶点展开存入场景，返回新图形的编号（只支持由直线段组成的单个闭合轮廓）
+    int add(Shape shape) {
+        int id = count;
+        ensureShapeCapacity(id + 1);
+        offset[id] = vertexCount;
+
+        double[] coords = new double[6];
+        for (PathIterator it = shape.getPathIterator(null); !it.isDone(); it.next()) {
+            int type = it.currentSegment(coords);
+            if (type != PathIterator.SEG_MOVETO && type != PathIterator.SEG_LINETO) continue;
+            ensureVertexCapacity(vertexCount + 1);
+            xs[vertexCount] = coords[0];
+            ys[vertexCount] = coords[1];
+            vertexCount++;
+        }
+        finishShape(id, IDENTITY);
+        return id;
+    }
+
+    // 直接添加顶点数组[0, n)和累积矩阵（6个值），用于从场景文件导入
+    int add(double[] x, double[] y, int n, double[] matrix) {
+        int id = count;
+        ensureShapeCapacity(id + 1);
+        ensureVertexCapacity(vertexCount + n);
+        offset[id] = vertexCount;
+        System.arraycopy(x, 0, xs, vertexCount, n);
+        System.arraycopy(y, 0, ys, vertexCount, n);
+        vertexCount += n;
+        finishShape(id, matrix);
+        return id;
+    }
+
+    private static final double[] IDENTITY = {1, 0, 0, 0, 1, 0};
+
+    // 顶点写入后记录长度、原始外接矩形和矩阵
+    private void finishShape(int id, double[] matrix) {
+        length[id] = vertexCount - offset[id];
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = offset[id]; i < vertexCount; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        baseBounds[id * 4] = minX;
+        baseBounds[id * 4 + 1] = minY;
+        baseBounds[id * 4 + 2] = maxX;
+        baseBounds[id * 4 + 3] = maxY;
+        System.arraycopy(matrix, 0, matrices, id * 6, 6);
+        cache[id] = null;
+        count++;
+    }
+
+    // 在图形现有变换之后再施加3x3矩阵t：M = t · M
+    void apply(int id, double[][] t) {
+        int m = id * 6;
+        double a = matrices[m], b = matrices[m + 1], c = matrices[m + 2];
+        double d = matrices[m + 3], e = matrices[m + 4], f = matrices[m + 5];
+        matrices[m] = t[0][0] * a + t[0][1] * d;
+        matrices[m + 1] = t[0][0] * b + t[0][1] * e;
+        matrices[m + 2] = t[0][0] * c + t[0][1] * f + t[0][2];
+        matrices[m + 3] = t[1][0] * a + t[1][1] * d;
+        matrices[m + 4] = t[1][0] * b + t[1][1] * e;
+        matrices[m + 5] = t[1][0] * c + t[1][1] * f + t[1][2];
+        cache[id] = null;
+    }
+
+    int vertexCount() {
+        return vertexCount;
+    }
+
+    // 以下用于导出：图形的原始顶点范围和累积矩阵
+    int vertexOffset(int id) {
+        return offset[id];
+    }
+
+    int vertexLength(int id) {
+        return length[id];
+    }
+
+    double x(int i) {
+        return xs[i];
+    }
+
+    double y(int i) {
+        return ys[i];
+    }
+
+    void matrix(int id, double[] out) {
+        System.arraycopy(matrices, id * 6, out, 0, 6);
+    }
+
+    // 按各自的累积矩阵变换所有图形的顶点，结果写入outX/outY，下标与内部顶点数组一致
+    void transformAll(double[] outX, double[] outY) {
+        for (int id = 0; id < count; id++) {
+            transformVertices(matrices, id * 6, xs, ys, outX, outY, offset[id], offset[id] + length[id], offset[id]);
+        }
+    }
+
+    // 批量仿射变换 [from, to) 范围内的顶点，结果从outOffset起写入；m从mOffset起依次为 m00 m01 m02 m10 m11 m12
+    // 仿射矩阵第三行恒为 0 0 1，每个点只需4次乘法和4次加法；循环体没有分支和对象分配，
+    // 按结构数组顺序访问，便于JIT自动向量化。输出可以与输入是同一组数组
+    static void transformVertices(double[] m, int mOffset, double[] xs, double[] ys,
+                                  double[] outX, double[] outY, int from, int to, int outOffset) {
+        double a = m[mOffset], b = m[mOffset + 1], c = m[mOffset + 2];
+        double d = m[mOffset + 3], e = m[mOffset + 4], f = m[mOffset + 5];
+        for (int i = from, o = outOffset; i < to; i++, o++) {
+            double x = xs[i], y = ys[i];
+            outX[o] = a * x + b * y + c;
+            outY[o] = d * x + e * y + f;
+        }
+    }
+
+    // 变换后的路径，矩阵改变前重复调用返回同一对象
+    Shape shape(int id) {
+        Shape shape = cache[id];
+        if (shape == null) {
+            int n = length[id];
+            if (pathX.length < n) {
+                pathX = new double[n];
+                pathY = new double[n];
+            }
+            transformVertices(matrices, id * 6, xs, ys, pathX, pathY, offset[id], offset[id] + n, 0);
+            Path2D path = new Path2D.Double(Path2D.WIND_NON_ZERO, n + 1);
+            for (int i = 0; i < n; i++) {
+                if (i == 0) {
+                    path.moveTo(pathX[i], pathY[i]);
+                } else {
+                    path.lineTo(pathX[i], pathY[i]);
+                }
+            }
+            path.closePath();
+            shape = path;
+            cache[id] = shape;
+        }
+        return shape;
+    }
+
+    boolean contains(int id, double x, double y) {
+        return shape(id).contains(x, y);
+    }
+
+    // 原始外接矩形四个角变换后的外接矩形，包含变换后的图形，无需生成路径
+    Rectangle2D bounds(int id) {
+        for (int k = 0; k < 4; k++) {
+            cornerX[k] = baseBounds[id * 4 + ((k & 1) == 0 ? 0 : 2)];
+            cornerY[k] = baseBounds[id * 4 + ((k & 2) == 0 ? 1 : 3)];
+        }
+        transformVertices(matrices, id * 6, cornerX, cornerY, cornerX, cornerY, 0, 4, 0);
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < 4; k++) {
+            minX = Math.min(minX, cornerX[k]);
+            minY = Math.min(minY, cornerY[k]);
+            maxX = Math.max(maxX, cornerX[k]);
+            maxY = Math.max(maxY, cornerY[k]);
+        }
+        return new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    private void ensureShapeCapacity(int n) {
+        if (n <= offset.length) return;
+        int capacity = Math.max(n, offset.length * 2);
+        offset = Arrays.copyOf(offset, capacity);
+        length = Arrays.copyOf(length, capacity);
+        baseBounds = Arrays.copyOf(baseBounds, capacity * 4);
+        matrices = Arrays.copyOf(matrices, capacity * 6);
+        cache = Arrays.copyOf(cache, capacity);
+    }
+
+    private void ensureVertexCapacity(int n) {
+        if (n <= xs.length) return;
+        int capacity = Math.max(n, xs.length * 2);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+    }
+}
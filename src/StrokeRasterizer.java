@@ -0,0 +1,319 @@
+import java.awt.Point;
+import java.awt.Shape;
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
+import java.util.List;
+
+// 粗线描边：把有宽度的折线或多边形轮廓拆成凸块（每条边一个四边形，每个拐角一个连接块），
+// 每块按扫描线转换成水平跨度交给PixelSink.span，与多边形填充走同一条输出路径，不经过Java2D的描边器
+// 采样点取像素中心，边按左闭右开、上闭下开处理，相邻凸块共用的边上不会漏掉或重复像素
+// 开放折线的两端为平头（不延伸）
+// 凸块逐块扫描，而不是全部放进EdgeFill.EdgeTable按非零规则求并集：顶点密集的轮廓上一个像素常被十几个凸块覆盖，
+// 合并后每行的活动边成百上千、彼此频繁交叉，排序和累加环绕数比逐块输出跨度慢1.2~14倍。
+// 代价是重叠处的像素会被写入多次，只适合不透明的span输出
+class StrokeRasterizer {
+    static final int JOIN_MITER = 0; // 尖角，超过斜接限制时退化为斜角
+    static final int JOIN_BEVEL = 1; // 斜角
+    static final int JOIN_ROUND = 2; // 圆角
+    private static final double MITER_LIMIT = 10; // 斜接长度与半线宽之比的上限，与BasicStroke的默认值相同
+
+    private final double halfWidth;
+    private final int join;
+    private int rowFrom = Integer.MIN_VALUE, rowTo = Integer.MAX_VALUE - 1;
+
+    // 当前子路径的顶点，相邻的重合点已去掉
+    private double[] xs = new double[16], ys = new double[16];
+    private int n;
+    // 当前凸块的顶点，凸块最多4个顶点
+    private final double[] px = new double[4], py = new double[4];
+    // 不为null时只把凸块记录到这里，不扫描，见pieces
+    private double[] recorded;
+    private int recordedSize;
+
+    StrokeRasterizer(double width, int join) {
+        if (!(width > 0) || Double.isInfinite(width)) {
+            throw new IllegalArgumentException("线宽必须为正数: " + width);
+        }
+        if (join < JOIN_MITER || join > JOIN_ROUND) {
+            throw new IllegalArgumentException("未知的连接方式: " + join);
+        }
+        halfWidth = width / 2;
+        this.join = join;
+    }
+
+    // 只输出扫描线from到to（含）之间的部分，通常传入光栅的行范围，画布外的行不再逐行计算
+    StrokeRasterizer clipRows(int from, int to) {
+        rowFrom = from;
+        rowTo = to;
+        return this;
+    }
+
+    // 线宽和连接方式相同的新实例；描边时会改写内部的顶点缓冲，每个线程须使用自己的实例
+    StrokeRasterizer copy() {
+        return new StrokeRasterizer(halfWidth * 2, join);
+    }
+
+    // 描边超出轮廓的最大距离，尖角最多延伸到斜接限制
+    double extent() {
+        return join == JOIN_MITER ? halfWidth * MITER_LIMIT : halfWidth;
+    }
+
+    void strokeLine(double x0, double y0, double x1, double y1, PixelSink sink) {
+        n = 0;
+        addVertex(x0, y0);
+        addVertex(x1, y1);
+        strokeSubpath(false, sink);
+    }
+
+    // 首尾相同的点列（面板中右键闭合的约定）按闭合多边形描边，否则按开放折线描边
+    void strokePolyline(List<Point> points, PixelSink sink) {
+        int count = points.size();
+        if (count == 0) return;
+        boolean closed = count > 2 && points.get(0).equals(points.get(count - 1));
+        n = 0;
+        for (int i = 0; i < (closed ? count - 1 : count); i++) {
+            Point p = points.get(i);
+            addVertex(p.x, p.y);
+        }
+        strokeSubpath(closed, sink);
+    }
+
+    // 描出路径的每个子路径，曲线先展平成折线
+    void stroke(Shape shape, PixelSink sink) {
+        double[] coords = new double[6];
+        n = 0;
+        for (PathIterator it = shape.getPathIterator(null, 0.25); !it.isDone(); it.next()) {
+            switch (it.currentSegment(coords)) {
+                case PathIterator.SEG_MOVETO:
+                    strokeSubpath(false, sink);
+                    n = 0;
+                    addVertex(coords[0], coords[1]);
+                    break;
+                case PathIterator.SEG_LINETO:
+                    addVertex(coords[0], coords[1]);
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    strokeSubpath(true, sink);
+                    // 闭合后的后续线段从子路径起点继续
+                    if (n > 0) {
+                        double x = xs[0], y = ys[0];
+                        n = 0;
+                        addVertex(x, y);
+                    }
+                    break;
+            }
+        }
+        strokeSubpath(false, sink);
+        n = 0;
+    }
+
+    // 只记录shape描边的全部凸块，不输出像素，供分块渲染时按凸块登记到图块：
+    // 每块依次为顶点数k和k个顶点的x、y；k为0时是圆角的圆点，后跟圆心的x、y
+    double[] pieces(Shape shape) {
+        recorded = new double[64];
+        recordedSize = 0;
+        stroke(shape, null);
+        double[] out = Arrays.copyOf(recorded, recordedSize);
+        recorded = null;
+        return out;
+    }
+
+    // 扫描pieces返回的数组中从offset开始的一块
+    void fillPiece(double[] pieces, int offset, PixelSink sink) {
+        int count = (int) pieces[offset];
+        if (count == 0) {
+            fillDisc(pieces[offset + 1], pieces[offset + 2], sink);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            px[i] = pieces[offset + 1 + 2 * i];
+            py[i] = pieces[offset + 2 + 2 * i];
+        }
+        fillConvex(count, sink);
+    }
+
+    // 记录当前凸块px/py[0, count)
+    private void record(int count) {
+        reserve(1 + 2 * count);
+        recorded[recordedSize++] = count;
+        for (int i = 0; i < count; i++) {
+            recorded[recordedSize++] = px[i];
+            recorded[recordedSize++] = py[i];
+        }
+    }
+
+    private void recordDisc(double cx, double cy) {
+        reserve(3);
+        recorded[recordedSize++] = 0;
+        recorded[recordedSize++] = cx;
+        recorded[recordedSize++] = cy;
+    }
+
+    private void reserve(int size) {
+        if (recordedSize + size > recorded.length) {
+            recorded = Arrays.copyOf(recorded, Math.max(recorded.length * 2, recordedSize + size));
+        }
+    }
+
+    private void addVertex(double x, double y) {
+        if (n > 0 && xs[n - 1] == x && ys[n - 1] == y) return;
+        if (n == xs.length) {
+            xs = Arrays.copyOf(xs, n * 2);
+            ys = Arrays.copyOf(ys, n * 2);
+        }
+        xs[n] = x;
+        ys[n] = y;
+        n++;
+    }
+
+    private void strokeSubpath(boolean closed, PixelSink sink) {
+        if (closed && n > 1 && xs[n - 1] == xs[0] && ys[n - 1] == ys[0]) {
+            n--;
+        }
+        if (n == 1) {
+            // 退化成一个点：只有圆角画出一个圆点
+            if (join == JOIN_ROUND) {
+                fillDisc(xs[0], ys[0], sink);
+            }
+            return;
+        }
+        if (n < 2) return;
+        int segments = closed ? n : n - 1;
+        for (int i = 0; i < segments; i++) {
+            strokeSegment(i, (i + 1) % n, sink);
+        }
+        int first = closed ? 0 : 1, last = closed ? n - 1 : n - 2;
+        for (int i = first; i <= last; i++) {
+            joinAt((i + n - 1) % n, i, (i + 1) % n, sink);
+        }
+    }
+
+    // 线段沿法线两侧各偏移半线宽得到的矩形
+    private void strokeSegment(int a, int b, PixelSink sink) {
+        double dx = xs[b] - xs[a], dy = ys[b] - ys[a];
+        double scale = halfWidth / Math.sqrt(dx * dx + dy * dy);
+        double nx = -dy * scale, ny = dx * scale;
+        px[0] = xs[a] + nx;
+        py[0] = ys[a] + ny;
+        px[1] = xs[b] + nx;
+        py[1] = ys[b] + ny;
+        px[2] = xs[b] - nx;
+        py[2] = ys[b] - ny;
+        px[3] = xs[a] - nx;
+        py[3] = ys[a] - ny;
+        fillConvex(4, sink);
+    }
+
+    // 填补顶点v外侧两个矩形之间的缺口；内侧两个矩形本来就重叠
+    private void joinAt(int prev, int v, int next, PixelSink sink) {
+        double x = xs[v], y = ys[v];
+        double d0x = x - xs[prev], d0y = y - ys[prev];
+        double d1x = xs[next] - x, d1y = ys[next] - y;
+        double len0 = Math.sqrt(d0x * d0x + d0y * d0y), len1 = Math.sqrt(d1x * d1x + d1y * d1y);
+        d0x /= len0;
+        d0y /= len0;
+        d1x /= len1;
+        d1y /= len1;
+        double cross = d0x * d1y - d0y * d1x;
+        double dot = d0x * d1x + d0y * d1y;
+        if (Math.abs(cross) < 1e-9 && dot > 0) return; // 共线，没有缺口
+        if (join == JOIN_ROUND) {
+            fillDisc(x, y, sink);
+            return;
+        }
+        if (Math.abs(cross) < 1e-9) return; // 折返180°，尖角和斜角都没有确定的外侧
+
+        // 外侧在转向的另一边
+        double side = cross > 0 ? -halfWidth : halfWidth;
+        double ax = x - d0y * side, ay = y + d0x * side;
+        double bx = x - d1y * side, by = y + d1x * side;
+        px[0] = x;
+        py[0] = y;
+        px[1] = ax;
+        py[1] = ay;
+        // 两条外侧边延长后的交点到顶点的距离为 halfWidth / cos(θ/2)，θ为两段方向的夹角
+        double cosHalf = Math.sqrt((1 + dot) / 2);
+        if (join == JOIN_MITER && 1 < MITER_LIMIT * cosHalf) {
+            double mx = -(d0y + d1y), my = d0x + d1x;
+            double scale = side / (cosHalf * Math.sqrt(mx * mx + my * my));
+            px[2] = x + mx * scale;
+            py[2] = y + my * scale;
+            px[3] = bx;
+            py[3] = by;
+            fillConvex(4, sink);
+        } else {
+            px[2] = bx;
+            py[2] = by;
+            fillConvex(3, sink);
+        }
+    }
+
+    // 凸多边形px/py[0, count)：从最高的顶点出发，沿顺、逆两个方向各走一条边链，
+    // 每条扫描线与两条链各有一个交点，两点之间就是这一行的跨度
+    private void fillConvex(int count, PixelSink sink) {
+        if (recorded != null) {
+            record(count);
+            return;
+        }
+        int top = 0;
+        double bottom = py[0];
+        for (int i = 1; i < count; i++) {
+            if (py[i] < py[top]) top = i;
+            bottom = Math.max(bottom, py[i]);
+        }
+        int yFrom = (int) Math.max(rowFrom, Math.ceil(py[top] - 0.5));
+        int yTo = (int) Math.min(rowTo, Math.ceil(bottom - 0.5) - 1);
+        int a = top, b = top;
+        int nextA = a + 1 == count ? 0 : a + 1, nextB = b == 0 ? count - 1 : b - 1;
+        double slopeA = 0, slopeB = 0;
+        boolean stale = true;
+        for (int y = yFrom; y <= yTo; y++) {
+            double cy = y + 0.5;
+            // 越过当前边的下端点时换到链上的下一条边；cy < bottom，不会越过最低点
+            while (py[nextA] <= cy) {
+                a = nextA;
+                nextA = a + 1 == count ? 0 : a + 1;
+                stale = true;
+            }
+            while (py[nextB] <= cy) {
+                b = nextB;
+                nextB = b == 0 ? count - 1 : b - 1;
+                stale = true;
+            }
+            if (stale) {
+                slopeA = (px[nextA] - px[a]) / (py[nextA] - py[a]);
+                slopeB = (px[nextB] - px[b]) / (py[nextB] - py[b]);
+                stale = false;
+            }
+            double xa = px[a] + (cy - py[a]) * slopeA;
+            double xb = px[b] + (cy - py[b]) * slopeB;
+            emit(Math.min(xa, xb), Math.max(xa, xb), y, sink);
+        }
+    }
+
+    // 以(cx, cy)为圆心、半线宽为半径的实心圆，用于圆角
+    private void fillDisc(double cx, double cy, PixelSink sink) {
+        if (recorded != null) {
+            recordDisc(cx, cy);
+            return;
+        }
+        double r = halfWidth;
+        int yFrom = (int) Math.max(rowFrom, Math.ceil(cy - r - 0.5));
+        int yTo = (int) Math.min(rowTo, Math.ceil(cy + r - 0.5) - 1);
+        for (int y = yFrom; y <= yTo; y++) {
+            double dy = y + 0.5 - cy;
+            double h = r * r - dy * dy;
+            if (h < 0) continue;
+            h = Math.sqrt(h);
+            emit(cx - h, cx + h, y, sink);
+        }
+    }
+
+    // 输出中心落在[left, right)内的像素
+    private static void emit(double left, double right, int y, PixelSink sink) {
+        double x0 = Math.ceil(left - 0.5), x1 = Math.ceil(right - 0.5) - 1;
+        if (x0 <= x1) {
+            sink.span((int) x0, (int) x1, y);
+        }
+    }
+}
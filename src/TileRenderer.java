@@ -0,0 +1,395 @@
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// 分块多线程渲染：图元按外接矩形登记到覆盖的固定大小图块中，渲染时每个图块由一个线程
+// 独立完成，只写入自己区域的裁剪视图，图块之间互不重叠，帧缓冲无需加锁
+// 同一图块内按提交顺序绘制，结果与在整幅光栅上依次绘制所有图元完全相同
+class TileRenderer {
+    static final int TILE_SIZE = 64;
+
+    private static final int LINE = 0;
+    private static final int CIRCLE = 1;
+    private static final int FILL_CIRCLE = 2;
+    private static final int ELLIPSE = 3;
+    private static final int POLYGON = 4;
+    private static final int ANTIALIASED_LINE = 5;
+    private static final int STROKE = 6;
+
+    private final int width, height;
+    private final int tilesX, tilesY;
+    // 每个图块的图元编号列表，下标0存放数量，编号按提交顺序递增
+    private final int[][] bins;
+
+    // 图元按结构数组存放：类型、颜色、参数在data中的起始位置
+    private int[] kind = new int[64];
+    private int[] rgb = new int[64];
+    private int[] dataOffset = new int[64];
+    private int[] data = new int[256];
+    private int count, dataCount;
+    private final List<PolygonBands> polygons = new ArrayList<>();
+    private final List<double[]> strokePieces = new ArrayList<>();
+    private final List<StrokeRasterizer> strokers = new ArrayList<>();
+    private Color color = Color.BLACK;
+
+    TileRenderer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        bins = new int[tilesX * tilesY][];
+    }
+
+    void setColor(Color c) {
+        color = c;
+    }
+
+    int size() {
+        return count;
+    }
+
+    void clear() {
+        count = 0;
+        dataCount = 0;
+        polygons.clear();
+        strokePieces.clear();
+        strokers.clear();
+        Arrays.fill(bins, null);
+    }
+
+    void line(int x0, int y0, int x1, int y1) {
+        addLine(LINE, x0, y0, x1, y1, 0);
+    }
+
+    void circle(int cx, int cy, int r) {
+        add(CIRCLE, (long) cx - r, (long) cy - r, (long) cx + r, (long) cy + r, cx, cy, r);
+    }
+
+    void fillCircle(int cx, int cy, int r) {
+        add(FILL_CIRCLE, (long) cx - r, (long) cy - r, (long) cx + r, (long) cy + r, cx, cy, r);
+    }
+
+    void ellipse(int cx, int cy, int a, int b) {
+        BresenhamEllipse.checkAxes(a, b); // 在提交时检查，避免在工作线程中才抛出异常
+        add(ELLIPSE, (long) cx - a, (long) cy - b, (long) cx + a, (long) cy + b, cx, cy, a, b);
+    }
+
+    // 边缘填充多边形，points须首尾闭合（与面板中的约定一致）
+    // 边表在提交时只构建一次，各图块共享，坐标超出边表范围时在这里抛出异常
+    void polygon(List<Point> points) {
+        if (points.size() < 2) return;
+        long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE, maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE;
+        for (Point p : points) {
+            minX = Math.min(minX, p.x);
+            minY = Math.min(minY, p.y);
+            maxX = Math.max(maxX, p.x);
+            maxY = Math.max(maxY, p.y);
+        }
+        if (maxX < 0 || maxY < 0 || minX >= width || minY >= height) return;
+        polygons.add(new PolygonBands(new EdgeFill.EdgeTable(points), height));
+        add(POLYGON, minX, minY, maxX, maxY, polygons.size() - 1);
+    }
+
+    // 路径轮廓拆成直线段分别登记，只占用它们实际经过的图块
+    void path(Shape shape) {
+        path(shape, false);
+    }
+
+    // 同path，线段用吴小林反走样直线绘制；每个像素按提交顺序混合，与直接绘制的结果相同
+    void antialiasedPath(Shape shape) {
+        path(shape, true);
+    }
+
+    // 用stroker描出路径轮廓：提交时把描边拆成凸块，每块按自己的外接矩形登记，图块只扫描与自己相交的凸块。
+    // stroker只提供线宽和连接方式，各图块使用各自的副本
+    void stroke(Shape shape, StrokeRasterizer stroker) {
+        double[] pieces = stroker.pieces(shape);
+        strokePieces.add(pieces);
+        strokers.add(stroker);
+        int index = strokers.size() - 1;
+        double r = stroker.extent(); // 圆点的半径
+        for (int p = 0; p < pieces.length; ) {
+            int k = (int) pieces[p];
+            double minX = pieces[p + 1], minY = pieces[p + 2], maxX = minX, maxY = minY;
+            for (int i = 1; i < k; i++) {
+                minX = Math.min(minX, pieces[p + 1 + 2 * i]);
+                minY = Math.min(minY, pieces[p + 2 + 2 * i]);
+                maxX = Math.max(maxX, pieces[p + 1 + 2 * i]);
+                maxY = Math.max(maxY, pieces[p + 2 + 2 * i]);
+            }
+            if (k == 0) {
+                minX -= r;
+                minY -= r;
+                maxX += r;
+                maxY += r;
+            }
+            // 坐标为NaN的凸块画不出像素
+            if (!Double.isNaN(minX + minY + maxX + maxY)) {
+                add(STROKE, (long) Math.floor(minX), (long) Math.floor(minY), (long) Math.ceil(maxX), (long) Math.ceil(maxY),
+                        index, p);
+            }
+            p += 1 + 2 * Math.max(k, 1);
+        }
+    }
+
+    private void path(Shape shape, boolean antialiased) {
+        double[] coords = new double[6];
+        int startX = 0, startY = 0, lastX = 0, lastY = 0;
+        for (PathIterator it = shape.getPathIterator(null); !it.isDone(); it.next()) {
+            int type = it.currentSegment(coords);
+            int x = (int) Math.round(coords[0]), y = (int) Math.round(coords[1]);
+            switch (type) {
+                case PathIterator.SEG_MOVETO:
+                    startX = lastX = x;
+                    startY = lastY = y;
+                    break;
+                case PathIterator.SEG_LINETO:
+                    segment(lastX, lastY, x, y, antialiased);
+                    lastX = x;
+                    lastY = y;
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    segment(lastX, lastY, startX, startY, antialiased);
+                    lastX = startX;
+                    lastY = startY;
+                    break;
+            }
+        }
+    }
+
+    private void segment(int x0, int y0, int x1, int y1, boolean antialiased) {
+        if (!antialiased) {
+            line(x0, y0, x1, y1);
+            return;
+        }
+        // 反走样直线在次方向上多写一个像素
+        addLine(ANTIALIASED_LINE, x0, y0, x1, y1, 1);
+    }
+
+    // 直线只登记到它经过的图块：逐行图块按斜率求出线段在这些行上的列范围，放宽pad + 1列后登记，
+    // 不按外接矩形登记，长斜线不会占满整个外接矩形中的图块。pad为右侧和下方多写的像素数
+    private void addLine(int type, int x0, int y0, int x1, int y1, int pad) {
+        long minX = Math.min(x0, x1), minY = Math.min(y0, y1);
+        long maxX = Math.max(x0, x1) + (long) pad, maxY = Math.max(y0, y1) + (long) pad;
+        if (maxX < 0 || maxY < 0 || minX >= width || minY >= height) return;
+        int id = record(type, x0, y0, x1, y1);
+        int ty0 = (int) (Math.max(0, minY) / TILE_SIZE), ty1 = (int) (Math.min(height - 1, maxY) / TILE_SIZE);
+        double slope = y0 == y1 ? 0 : (double) ((long) x1 - x0) / ((long) y1 - y0);
+        for (int ty = ty0; ty <= ty1; ty++) {
+            long lo = minX, hi = maxX;
+            if (y0 != y1) {
+                // 本行图块中的像素对应的直线y范围，上方放宽pad + 1行，下方放宽1行
+                double ya = Math.max(minY, (long) ty * TILE_SIZE - pad - 1);
+                double yb = Math.min(maxY, (long) ty * TILE_SIZE + TILE_SIZE);
+                double xa = x0 + (ya - y0) * slope, xb = x0 + (yb - y0) * slope;
+                lo = Math.max(lo, (long) Math.floor(Math.min(xa, xb)) - pad - 1);
+                hi = Math.min(hi, (long) Math.ceil(Math.max(xa, xb)) + pad + 1);
+            }
+            if (hi < 0 || lo >= width || lo > hi) continue;
+            register(id, (int) (Math.max(0, lo) / TILE_SIZE), ty, (int) (Math.min(width - 1, hi) / TILE_SIZE), ty);
+        }
+    }
+
+    // 记录图元参数并登记到外接矩形覆盖的图块；完全在画布外的图元直接丢弃
+    private void add(int type, long minX, long minY, long maxX, long maxY, int... params) {
+        if (maxX < 0 || maxY < 0 || minX >= width || minY >= height) return;
+        int tx0 = (int) (Math.max(0, minX) / TILE_SIZE), tx1 = (int) (Math.min(width - 1, maxX) / TILE_SIZE);
+        int ty0 = (int) (Math.max(0, minY) / TILE_SIZE), ty1 = (int) (Math.min(height - 1, maxY) / TILE_SIZE);
+        register(record(type, params), tx0, ty0, tx1, ty1);
+    }
+
+    // 记录图元的类型、颜色和参数，返回图元编号
+    private int record(int type, int... params) {
+        if (count == kind.length) {
+            kind = Arrays.copyOf(kind, count * 2);
+            rgb = Arrays.copyOf(rgb, count * 2);
+            dataOffset = Arrays.copyOf(dataOffset, count * 2);
+        }
+        if (dataCount + params.length > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataCount + params.length));
+        }
+        int id = count++;
+        kind[id] = type;
+        rgb[id] = color.getRGB();
+        dataOffset[id] = dataCount;
+        System.arraycopy(params, 0, data, dataCount, params.length);
+        dataCount += params.length;
+        return id;
+    }
+
+    // 把图元登记到图块[tx0, tx1]×[ty0, ty1]
+    private void register(int id, int tx0, int ty0, int tx1, int ty1) {
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) {
+                int tile = ty * tilesX + tx;
+                int[] ids = bins[tile];
+                if (ids == null) {
+                    ids = new int[8];
+                } else if (ids[0] + 1 == ids.length) {
+                    ids = Arrays.copyOf(ids, ids.length * 2);
+                }
+                ids[++ids[0]] = id;
+                bins[tile] = ids;
+            }
+        }
+    }
+
+    // 把所有图元画到raster上，raster尺寸须与构造时一致
+    void render(RasterPixelSink raster, ForkJoinPool pool) {
+        if (raster.getWidth() != width || raster.getHeight() != height) {
+            throw new IllegalArgumentException("光栅尺寸与渲染器不一致");
+        }
+        pool.invoke(new TileRange(this, raster, 0, bins.length));
+    }
+
+    // 在图块自己的裁剪视图中，按提交顺序绘制登记到该图块的图元
+    private void renderTile(RasterPixelSink raster, int tile) {
+        int[] ids = bins[tile];
+        if (ids == null) return;
+        int x0 = tile % tilesX * TILE_SIZE, y0 = tile / tilesX * TILE_SIZE;
+        int x1 = Math.min(width, x0 + TILE_SIZE) - 1, y1 = Math.min(height, y0 + TILE_SIZE) - 1;
+        RasterPixelSink view = raster.clip(x0, y0, x1, y1);
+        StrokeRasterizer source = null, stroker = null; // 本图块使用的描边器副本
+        for (int i = 1; i <= ids[0]; i++) {
+            int id = ids[i];
+            int p = dataOffset[id];
+            view.setColor(rgb[id]);
+            switch (kind[id]) {
+                case LINE:
+                    BresenhamLine.drawClippedLine(view, data[p], data[p + 1], data[p + 2], data[p + 3], x0, y0, x1, y1);
+                    break;
+                case CIRCLE:
+                    // 与椭圆相同，只有跨越多个图块的大圆才按图块裁剪
+                    if (data[p + 2] <= TILE_SIZE) {
+                        BresenhamCircle.drawCircle(view, data[p], data[p + 1], data[p + 2]);
+                    } else {
+                        BresenhamCircle.drawClippedCircle(view, data[p], data[p + 1], data[p + 2], x0, y0, x1, y1);
+                    }
+                    break;
+                case FILL_CIRCLE:
+                    if (data[p + 2] <= TILE_SIZE) {
+                        BresenhamCircle.fillCircle(view, data[p], data[p + 1], data[p + 2]);
+                    } else {
+                        BresenhamCircle.fillClippedCircle(view, data[p], data[p + 1], data[p + 2], x0, y0, x1, y1);
+                    }
+                    break;
+                case ELLIPSE:
+                    // 小椭圆的裁剪准备工作比直接递推还慢，只有大椭圆才按视口裁剪
+                    if (data[p + 2] <= TILE_SIZE && data[p + 3] <= TILE_SIZE) {
+                        BresenhamEllipse.drawBresenhamEllipse(view, data[p], data[p + 1], data[p + 2], data[p + 3]);
+                    } else {
+                        BresenhamEllipse.drawClippedEllipse(view, data[p], data[p + 1], data[p + 2], data[p + 3],
+                                x0, y0, x1, y1);
+                    }
+                    break;
+                case POLYGON:
+                    polygons.get(data[p]).fill(view, x0, y0, x1, y1);
+                    break;
+                case ANTIALIASED_LINE:
+                    BresenhamLine.drawClippedAntialiasedLine(view, data[p], data[p + 1], data[p + 2], data[p + 3],
+                            x0, y0, x1, y1);
+                    break;
+                case STROKE:
+                    if (strokers.get(data[p]) != source) {
+                        source = strokers.get(data[p]);
+                        stroker = source.copy().clipRows(y0, y1);
+                    }
+                    stroker.fillPiece(strokePieces.get(data[p]), data[p + 1], view);
+                    break;
+            }
+        }
+    }
+
+    // 多边形的边按图块行分组，并记下每条边在该行图块内的像素列范围：
+    // 图块只逐行递推与自己相交的边，整个在左侧的边只计入每行环绕数的初值，整个在右侧的边直接跳过。
+    // 这样每条边大体只在它经过的图块中逐行递推，递推总量与直接在整幅光栅上填充在同一量级
+    private static final class PolygonBands {
+        private final EdgeFill.EdgeTable table;
+        private final int firstBand;
+        private final int[][] edges, xLo, xHi; // 第firstBand + b行图块的边，按yMin排序
+        private final int[] counts;
+
+        PolygonBands(EdgeFill.EdgeTable table, int height) {
+            this.table = table;
+            // 只为画布内的图块行分组；边在[yMin, yMax)行上与扫描线相交
+            int top = Math.max(0, table.minY), bottom = Math.min(height - 1, table.maxY - 1);
+            firstBand = top / TILE_SIZE;
+            int bands = Math.max(0, bottom / TILE_SIZE - firstBand + 1);
+            edges = new int[bands][];
+            xLo = new int[bands][];
+            xHi = new int[bands][];
+            counts = new int[bands];
+            for (int i = 0; i < table.count; i++) {
+                int e = table.order[i];
+                int from = Math.max(table.yMin[e], top), to = Math.min(table.yMax[e] - 1, bottom);
+                if (from > to) continue;
+                for (int b = from / TILE_SIZE; b <= to / TILE_SIZE; b++) {
+                    // x随y单调变化，边在本行图块内的列范围由首末两行的交点确定
+                    int xa = table.pixelX(e, Math.max(from, b * TILE_SIZE));
+                    int xb = table.pixelX(e, Math.min(to, b * TILE_SIZE + TILE_SIZE - 1));
+                    append(b - firstBand, e, Math.min(xa, xb), Math.max(xa, xb));
+                }
+            }
+        }
+
+        private void append(int b, int e, int lo, int hi) {
+            int n = counts[b];
+            if (edges[b] == null) {
+                edges[b] = new int[8];
+                xLo[b] = new int[8];
+                xHi[b] = new int[8];
+            } else if (n == edges[b].length) {
+                edges[b] = Arrays.copyOf(edges[b], n * 2);
+                xLo[b] = Arrays.copyOf(xLo[b], n * 2);
+                xHi[b] = Arrays.copyOf(xHi[b], n * 2);
+            }
+            edges[b][n] = e;
+            xLo[b][n] = lo;
+            xHi[b][n] = hi;
+            counts[b]++;
+        }
+
+        // 按奇偶规则填充图块[x0, x1]×[y0, y1]内的部分
+        void fill(PixelSink view, int x0, int y0, int x1, int y1) {
+            int b = y0 / TILE_SIZE - firstBand;
+            if (b < 0 || b >= counts.length || counts[b] == 0) return;
+            table.fill(view, x0, y0, x1, y1, Path2D.WIND_EVEN_ODD, edges[b], xLo[b], xHi[b], counts[b]);
+        }
+    }
+
+    // 把图块下标区间对半切分，交给ForkJoinPool中的线程
+    private static class TileRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final TileRenderer renderer;
+        private final RasterPixelSink raster;
+        private final int from, to;
+
+        TileRange(TileRenderer renderer, RasterPixelSink raster, int from, int to) {
+            this.renderer = renderer;
+            this.raster = raster;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 4) {
+                for (int tile = from; tile < to; tile++) {
+                    renderer.renderTile(raster, tile);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TileRange(renderer, raster, from, mid),
+                      new TileRange(renderer, raster, mid, to));
+        }
+    }
+}